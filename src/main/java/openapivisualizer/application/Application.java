@@ -2,6 +2,7 @@ package openapivisualizer.application;
 
 import com.vaadin.flow.component.dependency.NpmPackage;
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.boot.SpringApplication;
@@ -16,6 +17,7 @@ import org.springframework.boot.web.servlet.support.SpringBootServletInitializer
  *
  */
 @SpringBootApplication
+@Push
 @Theme(value = "mybachelor")
 @PWA(name = "My Bachelor", shortName = "My Bachelor")
 @NpmPackage(value = "line-awesome", version = "1.3.0")
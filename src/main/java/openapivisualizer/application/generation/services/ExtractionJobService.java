@@ -0,0 +1,43 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the loading of specs in the background, so that the request threads of the UI are not blocked by it.
+ * The number of jobs that run at the same time is bounded, further jobs wait for a free thread.
+ */
+@Slf4j
+@Service
+public class ExtractionJobService {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public ExtractionJobService(@Value("${openapivisualizer.extraction.max-concurrent-jobs:4}") int maxConcurrentJobs) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs), runnable -> {
+            Thread thread = new Thread(runnable, "extraction-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the future of the job, cancelling it interrupts the job
+     */
+    public Future<?> submit(Runnable job) {
+        return executor.submit(job);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded pool shared by all sessions, on which independent parts of the extraction run in parallel.
+ */
+@Slf4j
+@Service
+public class ExtractionPoolService {
+
+    //tasks per thread, a few more than one keep threads busy when some chunks take longer than others
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    public ExtractionPoolService(@Value("${openapivisualizer.extraction.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("extraction-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        log.info("Extraction pool uses {} threads", threads);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Applies the mapper to all elements in parallel. The elements are split into contiguous chunks,
+     * so large lists do not create one task per element.
+     *
+     * @return the results in the order of the elements, independent of the order in which they were computed
+     */
+    public <T, R> List<R> map(List<T> elements, Function<T, R> mapper) {
+        if (pool.getParallelism() == 1 || elements.size() < 2) {
+            List<R> results = new ArrayList<>(elements.size());
+            elements.forEach(element -> results.add(mapper.apply(element)));
+            return results;
+        }
+        @SuppressWarnings("unchecked")
+        R[] results = (R[]) new Object[elements.size()];
+        int chunkCount = Math.min(elements.size(), pool.getParallelism() * CHUNKS_PER_THREAD);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int from = (int) ((long) elements.size() * chunk / chunkCount);
+            int to = (int) ((long) elements.size() * (chunk + 1) / chunkCount);
+            tasks.add(pool.submit(() -> {
+                for (int i = from; i < to; i++)
+                    results[i] = mapper.apply(elements.get(i));
+            }));
+        }
+        tasks.forEach(ForkJoinTask::join);
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Applies the action to all elements in parallel and waits until all of them are done
+     */
+    public <T> void forEach(List<T> elements, Consumer<T> action) {
+        map(elements, element -> {
+            action.accept(element);
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -1,6 +1,5 @@
 package openapivisualizer.application.generation.services;
 
-import com.vaadin.flow.spring.annotation.UIScope;
 import io.swagger.v3.oas.models.Operation;
 import io.swagger.v3.oas.models.Paths;
 import io.swagger.v3.oas.models.media.Content;
@@ -8,6 +7,8 @@ import lombok.extern.slf4j.Slf4j;
 import openapivisualizer.application.generation.structuremodel.DataPropertyType;
 import openapivisualizer.application.generation.structuremodel.StrucPath;
 import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucStringTable;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -17,12 +18,16 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
-@UIScope
 public class PathService {
 
+    //variable segment with a word as name followed by a word segment, e.g. /{id}/representations
+    private static final Pattern RELATION_SUFFIX = Pattern.compile(".*/\\{\\w+}/\\w+/?");
+
     private final SchemaService schemaService;
 
     public PathService(SchemaService schemaService) {
@@ -45,35 +50,35 @@ public class PathService {
         return apiPaths;
     }
 
-    public Map<String, String> getUriPaths(Map<String, Map<HttpMethod, StrucPath>> pathsForTag, List<String> apiPaths) {
+    /**
+     * @param pathTrie the trie of the paths of the tag, see createPathTrie
+     */
+    public Map<String, String> getUriPaths(PathTemplateTrie<String> pathTrie, List<String> apiPaths) {
         //apiPath: /artifact/ -> uriPath: /artifact/{id}/
 
-        //uriPath -> apiPath
+        //apiPath -> uriPath
         Map<String, String> uriPaths = new HashMap<>();
 
         apiPaths.forEach(apiPath -> {
-            String uriRegex = apiPath;
-            if (!apiPath.endsWith("/")) {
-                uriRegex += "/";
+            List<String> itemPaths = pathTrie.getVariableChildren(apiPath);
+            if (!itemPaths.isEmpty()) {
+                uriPaths.put(apiPath, itemPaths.get(0));
+                log.debug("URIPath found {} for APIPath {}", itemPaths.get(0), apiPath);
             }
-            uriRegex += "{";
-            String finalUriRegex = uriRegex;
-            pathsForTag.keySet().forEach(path -> {
-                if (path.startsWith(finalUriRegex) && (path.split("}").length == 1 || path.split("}/").length == 1)
-                        && (path.endsWith("}") || path.endsWith("}/"))) {
-                    uriPaths.put(apiPath, path);
-                    log.debug("URIPath found {} for APIPath {}", path, apiPath);
-                }
-            });
         });
         return uriPaths;
     }
 
-    public MultiValueMap<String, String> getRelationPaths(Map<String, Map<HttpMethod, StrucPath>> pathsForTag, List<String> apiPaths) {
+    /**
+     * @param pathTrie the trie of the paths of the tag, see createPathTrie
+     */
+    public MultiValueMap<String, String> getRelationPaths(Map<String, Map<HttpMethod, StrucPath>> pathsForTag,
+                                                          PathTemplateTrie<String> pathTrie, List<String> apiPaths) {
+        //apiPath: /artifact -> relationPath: /artifact/{id}/representations
         MultiValueMap<String, String> relationPath = new LinkedMultiValueMap<>();
 
-        apiPaths.forEach(apiPath -> pathsForTag.keySet().forEach(path -> {
-            if (path.matches(apiPath + "/\\{(\\w)+}/(\\w)+/?") && pathsForTag.get(path).containsKey(HttpMethod.GET)) {
+        apiPaths.forEach(apiPath -> pathTrie.getSubResources(apiPath).forEach(path -> {
+            if (RELATION_SUFFIX.matcher(path).matches() && pathsForTag.get(path).containsKey(HttpMethod.GET)) {
                 relationPath.add(apiPath, path);
                 //log.info("Relation Path found {} for APIPath {}", path, apiPath);
             }
@@ -81,7 +86,18 @@ public class PathService {
         return relationPath;
     }
 
-    public StrucPath operationToStrucPath(String path, HttpMethod httpMethod, Operation operation, Map<String, StrucSchema> strucSchemaMap) {
+    /**
+     * Creates a trie of all paths of a tag, that maps each path template to itself.
+     * Of equivalent templates, e.g. with and without trailing slash, the first one in sort order is kept.
+     * It is built once per tag and used to find both the uri and the relation paths.
+     */
+    public PathTemplateTrie<String> createPathTrie(Map<String, Map<HttpMethod, StrucPath>> pathsForTag) {
+        PathTemplateTrie<String> pathTrie = new PathTemplateTrie<>();
+        new TreeSet<>(pathsForTag.keySet()).forEach(path -> pathTrie.putIfAbsent(path, path));
+        return pathTrie;
+    }
+
+    public StrucPath operationToStrucPath(String path, HttpMethod httpMethod, Operation operation, StrucSchemaScope scope) {
         StrucPath strucPath = new StrucPath();
         strucPath.setPath(path);
         strucPath.setHttpMethod(httpMethod);
@@ -91,10 +107,10 @@ public class PathService {
         if (operation.getParameters() != null && !operation.getParameters().isEmpty()) {
             operation.getParameters().forEach(parameter -> {
                 if (parameter.getIn().equals("query"))
-                    strucPath.getQueryParams().add(new StrucPath.StrucParameter(parameter.getName(),
+                    strucPath.addQueryParam(new StrucPath.StrucParameter(parameter.getName(),
                             DataPropertyType.fromString(parameter.getSchema().getType()), parameter.getSchema().getFormat(), parameter.getRequired()));
                 else if (parameter.getIn().equals("path"))
-                    strucPath.getPathParams().add(new StrucPath.StrucParameter(parameter.getName(),
+                    strucPath.addPathParam(new StrucPath.StrucParameter(parameter.getName(),
                             DataPropertyType.fromString(parameter.getSchema().getType()), parameter.getSchema().getFormat(), parameter.getRequired()));
             });
         }
@@ -105,20 +121,20 @@ public class PathService {
                     //TODO application/octet-stream (data PUT)
                     String externalSchemaPath = operation.getRequestBody().getContent().get("application/json").getSchema().get$ref(); //TODO was wenn kein href & für andere arten von content
                     if (externalSchemaPath != null) {
-                        StrucSchema strucSchema = strucSchemaMap.get(schemaService.stripSchemaRefPath(externalSchemaPath));
+                        StrucSchema strucSchema = scope.resolve(schemaService.stripSchemaRefPath(externalSchemaPath));
                         strucPath.setRequestStrucSchema(strucSchema);
                     } else {
-                        StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("noName", operation.getRequestBody().getContent().get("application/json").getSchema());
+                        StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("noName", operation.getRequestBody().getContent().get("application/json").getSchema(), scope);
                         strucPath.setRequestStrucSchema(strucSchema);
                     }
                 }else if (operation.getRequestBody().getContent().containsKey("application/octet-stream") && operation.getRequestBody().getContent().get("application/octet-stream").getSchema() != null) { //Has actual Schema (Example /artifacts/id/data)
                     //TODO application/octet-stream (data PUT)
                     String externalSchemaPath = operation.getRequestBody().getContent().get("application/octet-stream").getSchema().get$ref(); //TODO was wenn kein href & für andere arten von content
                     if (externalSchemaPath != null) {
-                        StrucSchema strucSchema = strucSchemaMap.get(schemaService.stripSchemaRefPath(externalSchemaPath));
+                        StrucSchema strucSchema = scope.resolve(schemaService.stripSchemaRefPath(externalSchemaPath));
                         strucPath.setRequestStrucSchema(strucSchema);
                     } else {
-                        StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("noName", operation.getRequestBody().getContent().get("application/octet-stream").getSchema());
+                        StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("noName", operation.getRequestBody().getContent().get("application/octet-stream").getSchema(), scope);
                         strucPath.setRequestStrucSchema(strucSchema);
                     }
                 }
@@ -126,13 +142,13 @@ public class PathService {
         } else if (HttpMethod.GET.equals(httpMethod)) {
             if (operation.getResponses().containsKey("200") && operation.getResponses().get("200").getContent() != null) {
                 if (operation.getResponses().get("200").getContent().containsKey("*/*"))
-                    setResponseSchema(strucPath, operation, "200", "*/*", strucSchemaMap);
+                    setResponseSchema(strucPath, operation, "200", "*/*", scope);
                 else if (operation.getResponses().get("200").getContent().containsKey("application/json"))
-                    setResponseSchema(strucPath, operation, "200", "application/json", strucSchemaMap);
+                    setResponseSchema(strucPath, operation, "200", "application/json", scope);
                 else if (operation.getResponses().get("200").getContent().containsKey("application/ld+json"))
-                    setResponseSchema(strucPath, operation, "200", "application/ld+json", strucSchemaMap);
+                    setResponseSchema(strucPath, operation, "200", "application/ld+json", scope);
                 else if (operation.getResponses().get("200").getContent().containsKey("application/hal+json"))
-                    setResponseSchema(strucPath, operation, "200", "application/hal+json", strucSchemaMap);
+                    setResponseSchema(strucPath, operation, "200", "application/hal+json", scope);
             }
         }
         else {
@@ -149,95 +165,65 @@ public class PathService {
      * @param returnCode the http returnCode to be searched
      * @param returnType the returnType to be searched
      */
-    public void setResponseSchema(StrucPath strucPath, Operation operation, String returnCode, String returnType, Map<String, StrucSchema> strucSchemaMap) {
+    public void setResponseSchema(StrucPath strucPath, Operation operation, String returnCode, String returnType, StrucSchemaScope scope) {
         Content content = operation.getResponses().get(returnCode).getContent();
 
         if (content.containsKey(returnType)) {
             if (content.get(returnType).getSchema().get$ref() != null) {
                 String externalSchemaPath = content.get(returnType).getSchema().get$ref();
-                strucPath.setResponseStrucSchema(strucSchemaMap.get(schemaService.stripSchemaRefPath(externalSchemaPath)));
+                strucPath.setResponseStrucSchema(scope.resolve(schemaService.stripSchemaRefPath(externalSchemaPath)));
             } else if (content.get(returnType).getSchema().getType() != null
                     && content.get(returnType).getSchema().getType().equals("array")
                     && content.get(returnType).getSchema().getItems().get$ref() != null) {
                 String externalSchemaPath = content.get(returnType).getSchema().getItems().get$ref();
-                strucPath.setResponseStrucSchema(strucSchemaMap.get(schemaService.stripSchemaRefPath(externalSchemaPath)));
+                strucPath.setResponseStrucSchema(scope.resolve(schemaService.stripSchemaRefPath(externalSchemaPath)));
             }else if (content.get(returnType).getSchema().getType() != null
                     && content.get(returnType).getSchema().getType().equals("array")
                     && content.get(returnType).getSchema().getItems().get$ref() == null) {
-                StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("Array", operation.getResponses().get(returnCode).getContent().get(returnType).getSchema().getItems());
+                StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("Array", operation.getResponses().get(returnCode).getContent().get(returnType).getSchema().getItems(), scope);
                 strucPath.setResponseStrucSchema(strucSchema);
             }  else {
-                StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("Array", operation.getResponses().get(returnCode).getContent().get(returnType).getSchema());
+                StrucSchema strucSchema = schemaService.mapSchemaToStrucSchema("Array", operation.getResponses().get(returnCode).getContent().get(returnType).getSchema(), scope);
                 strucPath.setResponseStrucSchema(strucSchema);
             }
         }
     }
 
-    public Map<String, Map<HttpMethod, StrucPath>> getPathsNoTag(Paths paths, Map<String, StrucSchema> strucSchemaMap) {
-        Map<String, Map<HttpMethod, StrucPath>> pathOperationMap = new HashMap<>(); //Path -> List
-        paths.keySet().forEach(path -> { //TODO all paths without recognised tags into one sonstiges tag
-            Map<HttpMethod, StrucPath> methodOperationMap = new HashMap<>();
-            if (paths.get(path).getGet() != null
-                    && (paths.get(path).getGet().getTags() == null
-                    || paths.get(path).getGet().getTags().isEmpty())) {
-                methodOperationMap.put(HttpMethod.GET,
-                        operationToStrucPath(path, HttpMethod.GET, paths.get(path).getGet(), strucSchemaMap));
-            }
-            if (paths.get(path).getPost() != null
-                    && (paths.get(path).getPost().getTags() == null
-                    || paths.get(path).getPost().getTags().isEmpty())) {
-                methodOperationMap.put(HttpMethod.POST,
-                        operationToStrucPath(path, HttpMethod.POST, paths.get(path).getPost(), strucSchemaMap));
-            }
-            if (paths.get(path).getPut() != null
-                    && (paths.get(path).getPut().getTags() == null
-                    || paths.get(path).getPut().getTags().isEmpty())) {
-                methodOperationMap.put(HttpMethod.PUT,
-                        operationToStrucPath(path, HttpMethod.PUT, paths.get(path).getPut(), strucSchemaMap));
-            }
-            if (paths.get(path).getDelete() != null
-                    && (paths.get(path).getDelete().getTags() == null
-                    || paths.get(path).getDelete().getTags().isEmpty())) {
-                methodOperationMap.put(HttpMethod.DELETE,
-                        operationToStrucPath(path, HttpMethod.DELETE, paths.get(path).getDelete(), strucSchemaMap));
-            }
-            if (methodOperationMap.size() > 0)
-                pathOperationMap.put(path, methodOperationMap);
-        });
-        return pathOperationMap;
+    /**
+     * Groups all operations by their tags in a single pass over the paths, without converting them yet.
+     * The operations are converted when their tag is first needed, see PendingOperations.
+     *
+     * @param paths          the paths of the OpenAPI document
+     * @param scope          the scope of the mapped component schemas
+     * @param strings        the string table of the structure, the converted paths are frozen with it
+     * @param untaggedTag    the tag under which operations without any tag are grouped
+     */
+    PendingOperations groupOperationsByTag(Paths paths, StrucSchemaScope scope, StrucStringTable strings, String untaggedTag) {
+        PendingOperations pendingOperations = new PendingOperations(this, scope, strings);
+        if (paths != null) {
+            paths.forEach((path, pathItem) -> {
+                addOperation(pendingOperations, path, HttpMethod.GET, pathItem.getGet(), untaggedTag);
+                addOperation(pendingOperations, path, HttpMethod.POST, pathItem.getPost(), untaggedTag);
+                addOperation(pendingOperations, path, HttpMethod.PUT, pathItem.getPut(), untaggedTag);
+                addOperation(pendingOperations, path, HttpMethod.DELETE, pathItem.getDelete(), untaggedTag);
+            });
+        }
+        return pendingOperations;
     }
 
-    public Map<String, Map<HttpMethod, StrucPath>> getPathsForTag(String tagName, Paths paths, Map<String, StrucSchema> strucSchemaMap) {
-        Map<String, Map<HttpMethod, StrucPath>> pathOperationMap = new HashMap<>(); //Path -> List
-        paths.keySet().forEach(path -> { //TODO all paths without recognised tags into one sonstiges tag
-            Map<HttpMethod, StrucPath> methodOperationMap = new HashMap<>();
-            if (paths.get(path).getGet() != null
-                    && paths.get(path).getGet().getTags() != null
-                    && paths.get(path).getGet().getTags().contains(tagName)) {
-                methodOperationMap.put(HttpMethod.GET,
-                        operationToStrucPath(path, HttpMethod.GET, paths.get(path).getGet(), strucSchemaMap));
-            }
-            if (paths.get(path).getPost() != null
-                    && paths.get(path).getPost().getTags() != null
-                    && paths.get(path).getPost().getTags().contains(tagName)) {
-                methodOperationMap.put(HttpMethod.POST,
-                        operationToStrucPath(path, HttpMethod.POST, paths.get(path).getPost(), strucSchemaMap));
-            }
-            if (paths.get(path).getPut() != null
-                    && paths.get(path).getPut().getTags() != null
-                    && paths.get(path).getPut().getTags().contains(tagName)) {
-                methodOperationMap.put(HttpMethod.PUT,
-                        operationToStrucPath(path, HttpMethod.PUT, paths.get(path).getPut(), strucSchemaMap));
-            }
-            if (paths.get(path).getDelete() != null
-                    && paths.get(path).getDelete().getTags() != null
-                    && paths.get(path).getDelete().getTags().contains(tagName)) {
-                methodOperationMap.put(HttpMethod.DELETE,
-                        operationToStrucPath(path, HttpMethod.DELETE, paths.get(path).getDelete(), strucSchemaMap));
-            }
-            if (methodOperationMap.size() > 0)
-                pathOperationMap.put(path, methodOperationMap);
-        });
-        return pathOperationMap;
+    /**
+     * Groups the operations of a snapshot the same way as the ones of a parsed spec, see groupOperationsByTag
+     */
+    PendingOperations restoreOperations(List<PendingOperations.EncodedOperation> operations, StrucSchemaScope scope, StrucStringTable strings) {
+        PendingOperations pendingOperations = new PendingOperations(this, scope, strings);
+        operations.forEach(pendingOperations::add);
+        return pendingOperations;
+    }
+
+    private void addOperation(PendingOperations pendingOperations, String path, HttpMethod httpMethod, Operation operation, String untaggedTag) {
+        if (operation == null)
+            return;
+        List<String> tags = operation.getTags() == null || operation.getTags().isEmpty() ? List.of(untaggedTag) : operation.getTags();
+        pendingOperations.add(path, httpMethod, operation, tags);
     }
 }
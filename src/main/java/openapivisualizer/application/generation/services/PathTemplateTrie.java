@@ -0,0 +1,148 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie of path templates like /api/artifacts/{id}/representations, with one node per path segment.
+ * Literal segments and variable segments are kept apart, so related templates are found
+ * by walking the segments of a template instead of comparing it with every other template.
+ * Trailing and duplicate slashes are ignored. Children are kept sorted, so all results are in a stable order.
+ *
+ * @param <T> the value stored for a template
+ */
+public final class PathTemplateTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    @Getter
+    @AllArgsConstructor
+    public static class Match<T> {
+        private final T value;
+        private final Map<String, String> variables;
+    }
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> literalChildren = new TreeMap<>();
+        private final Map<String, Node<T>> variableChildren = new TreeMap<>();
+        private T value;
+    }
+
+    /**
+     * Stores the value for the template, unless a value is already stored for an equivalent template
+     *
+     * @return true if the value was stored
+     */
+    public boolean putIfAbsent(String template, T value) {
+        Node<T> node = root;
+        for (String segment : segments(template)) {
+            Map<String, Node<T>> children = isVariable(segment) ? node.variableChildren : node.literalChildren;
+            node = children.computeIfAbsent(segment, s -> new Node<>());
+        }
+        if (node.value != null)
+            return false;
+        node.value = value;
+        return true;
+    }
+
+    public T get(String template) {
+        Node<T> node = find(template);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the values of the templates that extend the template by exactly one variable segment,
+     * e.g. /artifacts/{id} for /artifacts
+     */
+    public List<T> getVariableChildren(String template) {
+        List<T> values = new ArrayList<>();
+        Node<T> node = find(template);
+        if (node != null)
+            node.variableChildren.values().forEach(child -> addValue(values, child));
+        return values;
+    }
+
+    /**
+     * Returns the values of the templates that extend the template by a variable and a literal segment,
+     * e.g. /artifacts/{id}/representations for /artifacts
+     */
+    public List<T> getSubResources(String template) {
+        List<T> values = new ArrayList<>();
+        Node<T> node = find(template);
+        if (node != null)
+            node.variableChildren.values().forEach(variableChild ->
+                    variableChild.literalChildren.values().forEach(child -> addValue(values, child)));
+        return values;
+    }
+
+    /**
+     * Finds the template that matches a concrete path, like /artifacts/42 for /artifacts/{id}.
+     * Literal segments take precedence over variable segments.
+     *
+     * @return the value of the matching template and the values of its variables, or null if no template matches
+     */
+    public Match<T> match(String path) {
+        Map<String, String> variables = new HashMap<>();
+        T value = match(root, segments(path), 0, variables);
+        return value == null ? null : new Match<>(value, variables);
+    }
+
+    private T match(Node<T> node, List<String> segments, int index, Map<String, String> variables) {
+        if (index == segments.size())
+            return node.value;
+        String segment = segments.get(index);
+        Node<T> literalChild = node.literalChildren.get(segment);
+        if (literalChild != null) {
+            T value = match(literalChild, segments, index + 1, variables);
+            if (value != null)
+                return value;
+        }
+        for (Map.Entry<String, Node<T>> variableChild : node.variableChildren.entrySet()) {
+            T value = match(variableChild.getValue(), segments, index + 1, variables);
+            if (value != null) {
+                String variable = variableChild.getKey();
+                variables.put(variable.substring(1, variable.length() - 1), segment);
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private Node<T> find(String template) {
+        Node<T> node = root;
+        for (String segment : segments(template)) {
+            node = (isVariable(segment) ? node.variableChildren : node.literalChildren).get(segment);
+            if (node == null)
+                return null;
+        }
+        return node;
+    }
+
+    private static <T> void addValue(List<T> values, Node<T> node) {
+        if (node.value != null)
+            values.add(node.value);
+    }
+
+    static boolean isVariable(String segment) {
+        return segment.length() > 1 && segment.charAt(0) == '{' && segment.indexOf('}') == segment.length() - 1;
+    }
+
+    static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start)
+                    segments.add(path.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,144 @@
+package openapivisualizer.application.generation.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.Operation;
+import openapivisualizer.application.generation.structuremodel.StrucPath;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucStringTable;
+import openapivisualizer.application.generation.structuremodel.StructureFreezer;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The operations of a spec grouped by tag, they are converted to StrucPaths when their tag is first needed.
+ * Until then an operation is only kept as its JSON encoding, so nothing of the swagger model stays reachable
+ * once the spec is mapped. An operation with several tags is converted once and shared by these tags.
+ * Tags may be converted by multiple threads at the same time.
+ */
+final class PendingOperations {
+
+    private static final ObjectMapper MAPPER = Json.mapper();
+
+    private final PathService pathService;
+    private final StrucSchemaScope scope;
+    private final StrucStringTable strings;
+    private final Map<String, List<PendingOperation>> operationsByTag = new HashMap<>();
+    private final List<PendingOperation> operations = new ArrayList<>();
+
+    /**
+     * An operation as it is kept until it is converted
+     *
+     * @param tags the distinct tags of the operation
+     * @param json the operation encoded with the swagger mapper
+     */
+    record EncodedOperation(String path, HttpMethod httpMethod, List<String> tags, byte[] json) {
+    }
+
+    PendingOperations(PathService pathService, StrucSchemaScope scope, StrucStringTable strings) {
+        this.pathService = pathService;
+        this.scope = scope;
+        this.strings = strings;
+    }
+
+    /**
+     * Adds an operation under each of its tags, duplicate tags of the same operation only count once
+     */
+    void add(String path, HttpMethod httpMethod, Operation operation, List<String> tags) {
+        byte[] operationJson;
+        try {
+            operationJson = MAPPER.writeValueAsBytes(operation);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not encode the operation " + httpMethod + " " + path, e);
+        }
+        add(new EncodedOperation(path, httpMethod, List.copyOf(new LinkedHashSet<>(tags)), operationJson));
+    }
+
+    /**
+     * Adds an operation that has been encoded before, e.g. one that is restored from a snapshot
+     */
+    void add(EncodedOperation encodedOperation) {
+        List<String> tags = encodedOperation.tags().stream().map(strings::canonical).toList();
+        PendingOperation pendingOperation = new PendingOperation(strings.canonical(encodedOperation.path()),
+                encodedOperation.httpMethod(), tags, encodedOperation.json());
+        operations.add(pendingOperation);
+        new LinkedHashSet<>(tags).forEach(tag -> operationsByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(pendingOperation));
+    }
+
+    /**
+     * @return the operations in the order they were added, only valid while none of them has been converted
+     */
+    List<EncodedOperation> getEncodedOperations() {
+        return operations.stream().map(operation -> new EncodedOperation(operation.path, operation.httpMethod,
+                operation.tags, operation.operationJson)).toList();
+    }
+
+    Set<String> getTags() {
+        return Collections.unmodifiableSet(operationsByTag.keySet());
+    }
+
+    /**
+     * @return the path templates of the operations of the tag, nothing is converted for that
+     */
+    Set<String> getPaths(String tag) {
+        Set<String> paths = new LinkedHashSet<>();
+        operationsByTag.getOrDefault(tag, List.of()).forEach(operation -> paths.add(operation.path));
+        return paths;
+    }
+
+    /**
+     * Converts the operations of the tag that have not been converted yet
+     *
+     * @return path -> http method -> StrucPath, the paths are the canonical ones of the frozen StrucPaths
+     */
+    Map<String, Map<HttpMethod, StrucPath>> convert(String tag) {
+        Map<String, Map<HttpMethod, StrucPath>> paths = new HashMap<>();
+        for (PendingOperation operation : operationsByTag.getOrDefault(tag, List.of())) {
+            StrucPath strucPath = operation.convert();
+            paths.computeIfAbsent(strucPath.getPath(), p -> new HashMap<>()).put(strucPath.getHttpMethod(), strucPath);
+        }
+        return paths;
+    }
+
+    private final class PendingOperation {
+        private final String path;
+        private final HttpMethod httpMethod;
+        private final List<String> tags;
+        //released once the operation is converted
+        private byte[] operationJson;
+        private StrucPath strucPath;
+
+        private PendingOperation(String path, HttpMethod httpMethod, List<String> tags, byte[] operationJson) {
+            this.path = path;
+            this.httpMethod = httpMethod;
+            this.tags = tags;
+            this.operationJson = operationJson;
+        }
+
+        private synchronized StrucPath convert() {
+            if (strucPath == null) {
+                Operation operation;
+                try {
+                    operation = MAPPER.readValue(operationJson, Operation.class);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not decode the operation " + httpMethod + " " + path, e);
+                }
+                StrucPath convertedPath = pathService.operationToStrucPath(path, httpMethod, operation, scope);
+                new StructureFreezer(strings).freeze(convertedPath);
+                strucPath = convertedPath;
+                operationJson = null;
+            }
+            return strucPath;
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package openapivisualizer.application.generation.services;
 
-import com.vaadin.flow.spring.annotation.UIScope;
+import io.swagger.v3.oas.models.media.ObjectSchema;
 import io.swagger.v3.oas.models.media.Schema;
 import lombok.extern.slf4j.Slf4j;
+import openapivisualizer.application.generation.structuremodel.CompositionType;
 import openapivisualizer.application.generation.structuremodel.DataPropertyType;
 import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaWalker;
 import openapivisualizer.application.generation.structuremodel.StrucValue;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
-@UIScope
 public class SchemaService {
 
+    private final ExtractionPoolService extractionPoolService;
+    private final int parallelMappingThreshold;
+    private final boolean eagerRefResolution;
+
+    public SchemaService(ExtractionPoolService extractionPoolService,
+                         @Value("${openapivisualizer.extraction.parallel-mapping-threshold:64}") int parallelMappingThreshold,
+                         @Value("${openapivisualizer.extraction.eager-ref-resolution:false}") boolean eagerRefResolution) {
+        this.extractionPoolService = extractionPoolService;
+        this.parallelMappingThreshold = parallelMappingThreshold;
+        this.eagerRefResolution = eagerRefResolution;
+    }
+
     public String getPagedSchemaName(StrucSchema schema) { //TODO GENERALISIEREN -> geht überhaupt?
         Map<String, StrucSchema> properties = schema.getStrucValue().getProperties().get("_embedded").getStrucValue().getProperties();
         Map.Entry<String, StrucSchema> entry = properties.entrySet().iterator().next();
@@ -35,14 +59,26 @@ public class SchemaService {
         return properties != null && properties.containsKey("_embedded");
     }
 
-    public StrucSchema mapSchemaToStrucSchema(String name, Schema schema) {
+    /**
+     * Maps a swagger schema to a StrucSchema. References to component schemas are kept as values of type SCHEMA
+     * and are replaced with the referenced component when their parent value is first accessed.
+     *
+     * @param scope the component schemas the references are resolved against
+     */
+    public StrucSchema mapSchemaToStrucSchema(String name, Schema schema, StrucSchemaScope scope) {
         StrucSchema strucSchema = new StrucSchema();
         strucSchema.setName(name);
         StrucValue strucValue = null;
-        if (schema.getType() != null) {
+        if (schema.get$ref() == null && isAlias(schema)) {
+            //a composition of a single reference is the referenced schema
+            strucValue = new StrucValue(DataPropertyType.SCHEMA);
+            strucValue.setRef(stripSchemaRefPath(compositionParts(schema).get(0).get$ref()));
+        } else if (schema.get$ref() == null && isComposition(schema)) {
+            strucValue = mapComposition(name, schema, scope);
+        } else if (schema.getType() != null) {
             //Schema is not a reference
             if (Objects.equals(schema.getType(), "object")) {
-                strucValue = new StrucValue(DataPropertyType.OBJECT);
+                strucValue = new StrucValue(DataPropertyType.OBJECT, scope);
                 if (schema.getProperties() != null) {
                     Map<String, Schema> properties = schema.getProperties();
                     if (properties == null) {
@@ -50,41 +86,43 @@ public class SchemaService {
                     }
                     StrucValue finalStrucValue = strucValue;
                     properties.forEach((propertyName, property) ->
-                            finalStrucValue.getProperties().put(propertyName, mapSchemaToStrucSchema(propertyName, property))
+                            finalStrucValue.addProperty(propertyName, mapSchemaToStrucSchema(propertyName, property, scope))
                     );
+                    if (schema.getRequired() != null)
+                        schema.getRequired().forEach(requiredProperty -> finalStrucValue.addRequiredProperty((String) requiredProperty));
 
                 }
                 if (schema.getAdditionalProperties() != null) {
-                    if (schema.getAdditionalProperties().getClass().getSimpleName().equals("Boolean")) {
-                        Schema additionalSchema = (Schema) schema.getAdditionalProperties();
-                        strucValue.setAdditionalPropertySchema(mapSchemaToStrucSchema("additionalProperties", additionalSchema));
+                    if (schema.getAdditionalProperties() instanceof Boolean allowed) {
+                        //true is the default, any additional property is allowed
+                        strucValue.setClosed(!allowed);
                     } else if (schema.getAdditionalProperties().getClass().getSimpleName().contains("Schema")) {
                         Schema additionalSchema = (Schema) schema.getAdditionalProperties();
-                        strucValue.setAdditionalPropertySchema(mapSchemaToStrucSchema("additionalProperties", additionalSchema));
+                        strucValue.setAdditionalPropertySchema(mapSchemaToStrucSchema("additionalProperties", additionalSchema, scope));
                     } else {
                         String nameS = schema.getAdditionalProperties().getClass().getSimpleName();
                         log.warn("Additional Properties is not boolean nor schema");
                     }
                 }
             } else if (Objects.equals(schema.getType(), "array")) {
-                strucValue = new StrucValue(DataPropertyType.ARRAY);
+                strucValue = new StrucValue(DataPropertyType.ARRAY, scope);
                 if (schema.getItems().get$ref() != null) {
                     //Reference is inside array
                     strucValue.setRef(stripSchemaRefPath(schema.getItems().get$ref())); //TODO so ok ? oder nur wie unten ?
-                    StrucSchema oneOfStrucSchema = mapSchemaToStrucSchema("oneOf", schema.getItems());
-                    strucValue.getArrayElements().add(oneOfStrucSchema);
+                    StrucSchema oneOfStrucSchema = mapSchemaToStrucSchema("oneOf", schema.getItems(), scope);
+                    strucValue.addArrayElement(oneOfStrucSchema);
                 } else if (schema.getItems().getOneOf() != null
                         && !schema.getItems().getOneOf().isEmpty()) {
                     //is OneOf multiple schemas or refs
                     List<Schema> oneOfSchemas = schema.getItems().getOneOf();
                     StrucValue finalStrucValue1 = strucValue;
                     oneOfSchemas.forEach(oneOfSchema -> {
-                        StrucSchema oneOfStrucSchema = mapSchemaToStrucSchema("oneOf", oneOfSchema);
-                        finalStrucValue1.getArrayElements().add(oneOfStrucSchema);
+                        StrucSchema oneOfStrucSchema = mapSchemaToStrucSchema("oneOf", oneOfSchema, scope);
+                        finalStrucValue1.addArrayElement(oneOfStrucSchema);
                     });
                 } else {
                     //simple item inside array or object
-                    strucValue.getArrayElements().add(mapSchemaToStrucSchema("oneOf", schema.getItems()));
+                    strucValue.addArrayElement(mapSchemaToStrucSchema("oneOf", schema.getItems(), scope));
                 }
             } else {
                 //schema is string or other
@@ -98,24 +136,6 @@ public class SchemaService {
             if (schema.get$ref() != null) {
                 strucValue = new StrucValue(DataPropertyType.SCHEMA);
                 strucValue.setRef(stripSchemaRefPath(schema.get$ref()));
-            } else if (schema.getAllOf()!=null && schema.getAllOf().size() == 1) {
-                List<Schema> allOfSchemas = schema.getAllOf();
-                if (allOfSchemas.get(0).get$ref() != null) {
-                    strucValue = new StrucValue(DataPropertyType.SCHEMA);
-                    strucValue.setRef(stripSchemaRefPath(allOfSchemas.get(0).get$ref()));
-                }
-            } else if (schema.getOneOf()!=null && schema.getOneOf().size() == 1) {
-                List<Schema> oneOfSchemas = schema.getOneOf();
-                if (oneOfSchemas.get(0).get$ref() != null) {
-                    strucValue = new StrucValue(DataPropertyType.SCHEMA);
-                    strucValue.setRef(stripSchemaRefPath(oneOfSchemas.get(0).get$ref()));
-                }
-            }  else if (schema.getAnyOf()!=null && schema.getAnyOf().size() == 1) {
-                List<Schema> anyOfSchemas = schema.getAnyOf();
-                if (anyOfSchemas.get(0).get$ref() != null) {
-                    strucValue = new StrucValue(DataPropertyType.SCHEMA);
-                    strucValue.setRef(stripSchemaRefPath(anyOfSchemas.get(0).get$ref()));
-                }
             }
         }
         if (strucValue == null){
@@ -123,69 +143,125 @@ public class SchemaService {
             strucValue = new StrucValue(DataPropertyType.STRING);
         }
         strucSchema.setStrucValue(strucValue);
-        return strucSchema;
+        //the children have been interned already, so equal shapes are found by comparing the direct children only
+        return scope.intern(strucSchema);
     }
 
 
-    public Map<String, StrucSchema> mapSchemasToStrucSchemas(Map<String, Schema> schemaMap) {
-        Map<String, StrucSchema> strucSchemaMap = new HashMap<>();
+    private static boolean isComposition(Schema schema) {
+        return !compositionParts(schema).isEmpty();
+    }
 
-        //Map all schemas to StrucSchemas
-        for (Map.Entry<String, Schema> schemaEntry : schemaMap.entrySet()) {
-            StrucSchema strucSchema = mapSchemaToStrucSchema(schemaEntry.getKey(), schemaEntry.getValue());
-            strucSchemaMap.put(schemaEntry.getKey(), strucSchema);
-        }
+    /**
+     * @return whether the schema is only a composition of a single reference without properties of its own
+     */
+    private static boolean isAlias(Schema schema) {
+        List<Schema> parts = compositionParts(schema);
+        return parts.size() == 1 && parts.get(0).get$ref() != null
+                && (schema.getProperties() == null || schema.getProperties().isEmpty());
+    }
 
-        //Resolve the internal refs to other strucSchemas
-        for (Map.Entry<String, StrucSchema> schemaEntry : strucSchemaMap.entrySet()) {
-            replaceInternalRefs(schemaEntry.getValue(), strucSchemaMap);
-        }
-        return strucSchemaMap;
+    /**
+     * @return the parts of allOf, oneOf or anyOf in this order of precedence, an empty list if the schema is no composition
+     */
+    private static List<Schema> compositionParts(Schema schema) {
+        if (schema.getAllOf() != null && !schema.getAllOf().isEmpty())
+            return schema.getAllOf();
+        if (schema.getOneOf() != null && !schema.getOneOf().isEmpty())
+            return schema.getOneOf();
+        if (schema.getAnyOf() != null && !schema.getAnyOf().isEmpty())
+            return schema.getAnyOf();
+        return List.of();
     }
 
-    public void replaceInternalRefs(StrucSchema schema, Map<String, StrucSchema> schemaMap) {
-        if (schema.getStrucValue().getType().equals(DataPropertyType.OBJECT)) {
-            //If any of the properties is a ref, replace it with the actual schema, otherwise repeat this function for it
-            List<Map.Entry<String, StrucSchema>> properties = schema.getStrucValue().getProperties().entrySet().stream().toList();
-            for (int i = 0; i < properties.size(); i++) {
-
-                if (!properties.get(i).getValue().getStrucValue().getType().equals(DataPropertyType.SCHEMA))
-                    replaceInternalRefs(properties.get(i).getValue(), schemaMap);
-                else
-                    schema.getStrucValue().getProperties().put(
-                            properties.get(i).getKey(),
-                            schemaMap.get(properties.get(i).getValue().getStrucValue().getRef()));
-            }
-            //Check if the schema of the additional properties has a ref
-            if (schema.getStrucValue().getAdditionalPropertySchema() != null) {
-                //If the additional Property Schema is a ref -> replace it else
-                if (!schema.getStrucValue().getAdditionalPropertySchema().getStrucValue().getType().equals(DataPropertyType.SCHEMA)) {
-                    replaceInternalRefs(schema.getStrucValue().getAdditionalPropertySchema(), schemaMap);
-                } else {
-                    schema.getStrucValue().setAdditionalPropertySchema(
-                            schemaMap.get(schema.getStrucValue().getAdditionalPropertySchema().getStrucValue().getRef()));
-                }
+    /**
+     * Maps the parts of a composition, the merged value is created by the scope, see StrucSchemaScope.compose.
+     * Properties that the composed schema declares itself are an additional part of an allOf.
+     */
+    private StrucValue mapComposition(String name, Schema schema, StrucSchemaScope scope) {
+        CompositionType compositionType;
+        if (schema.getAllOf() != null && !schema.getAllOf().isEmpty())
+            compositionType = CompositionType.ALL_OF;
+        else if (schema.getOneOf() != null && !schema.getOneOf().isEmpty())
+            compositionType = CompositionType.ONE_OF;
+        else
+            compositionType = CompositionType.ANY_OF;
 
-            }
-        } else if (schema.getStrucValue().getType().equals(DataPropertyType.ARRAY)) {
-            if (schema.getStrucValue().getRef() != null) {
-                log.warn("Ref inside array, when it should be inside schema");
-            }
+        List<StrucSchema> parts = new ArrayList<>();
+        for (Schema part : compositionParts(schema))
+            parts.add(mapSchemaToStrucSchema(name, part, scope));
+        if (compositionType == CompositionType.ALL_OF && schema.getProperties() != null && !schema.getProperties().isEmpty()) {
+            Schema ownProperties = new ObjectSchema();
+            ownProperties.setProperties(schema.getProperties());
+            ownProperties.setRequired(schema.getRequired());
+            ownProperties.setAdditionalProperties(schema.getAdditionalProperties());
+            parts.add(mapSchemaToStrucSchema(name, ownProperties, scope));
+        }
+        return scope.compose(compositionType, parts);
+    }
 
-            //If any of the array elements is a ref, replace it with the actual schema, otherwise repeat this function for it
-            for (int i = 0; i < schema.getStrucValue().getArrayElements().size(); i++) {
-                if (!schema.getStrucValue().getArrayElements().get(i).getStrucValue().getType().equals(DataPropertyType.SCHEMA))
-                    replaceInternalRefs(schema.getStrucValue().getArrayElements().get(i), schemaMap);
-                else //is nested Schema
-                    schema.getStrucValue().getArrayElements().set(
-                            i,
-                            schemaMap.get(schema.getStrucValue().getArrayElements().get(i).getStrucValue().getRef()));
-            }
+    /**
+     * Maps the component schemas. The returned scope is used for all further schemas of the same extraction,
+     * so that their references are resolved against the components and their inline schemas are shared.
+     */
+    public StrucSchemaScope mapSchemasToStrucSchemas(Map<String, Schema> schemaMap) {
+        Map<String, StrucSchema> strucSchemaMap = new HashMap<>();
+        //the internal refs to other strucSchemas are resolved against the finished map when they are first accessed
+        StrucSchemaScope scope = new StrucSchemaScope(strucSchemaMap);
+        if (schemaMap == null) {
+            scope.complete();
+            return scope;
+        }
+
+        //Map all schemas to StrucSchemas, every schema is read and mapped independently of the others
+        //the names are sorted, so the components are mapped in the same order no matter how the spec orders them
+        List<String> schemaNames = new ArrayList<>(new TreeSet<>(schemaMap.keySet()));
+        List<StrucSchema> strucSchemas;
+        if (schemaNames.size() < parallelMappingThreshold) {
+            //for small specs the parallel tasks cost more than they save
+            strucSchemas = new ArrayList<>(schemaNames.size());
+            schemaNames.forEach(schemaName -> strucSchemas.add(mapSchemaToStrucSchema(schemaName, schemaMap.get(schemaName), scope)));
         } else {
-            //nothing
-            if (schema.getStrucValue().getType().equals(DataPropertyType.SCHEMA))
-                log.warn("Unreplaced internal schema found: {}", schema.getName());
+            strucSchemas = extractionPoolService.map(schemaNames,
+                    schemaName -> mapSchemaToStrucSchema(schemaName, schemaMap.get(schemaName), scope));
         }
+        //components are never shared with inline schemas, only their values may be
+        for (int i = 0; i < schemaNames.size(); i++)
+            strucSchemaMap.put(schemaNames.get(i), new StrucSchema(schemaNames.get(i), strucSchemas.get(i).getStrucValue()));
+        //all parts of the compositions can be resolved now
+        scope.complete();
+        log.info("Schema composition: {}", scope.getCompositionReport());
+        if (eagerRefResolution)
+            resolveRefs(strucSchemaMap.values());
+        return scope;
+    }
+
+    /**
+     * Resolves the references of all components and their inline schemas in parallel, instead of on first access.
+     * Every component is walked by one task, which stops at other components, as they are walked by their own task.
+     * Values that are reachable from several components are resolved once, resolving is the same no matter which
+     * task does it.
+     */
+    private void resolveRefs(Collection<StrucSchema> components) {
+        long start = System.nanoTime();
+        Set<StrucSchema> componentSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        componentSet.addAll(components);
+        Set<StrucValue> resolvedValues = ConcurrentHashMap.newKeySet();
+        extractionPoolService.forEach(new ArrayList<>(components), component -> {
+            Deque<StrucSchema> pending = new ArrayDeque<>();
+            pending.push(component);
+            while (!pending.isEmpty()) {
+                StrucSchema schema = pending.pop();
+                if (schema.getStrucValue() == null || !resolvedValues.add(schema.getStrucValue()))
+                    continue;
+                //the children are read through the getters, which resolves the references of the value
+                StrucSchemaWalker.children(schema).forEach(child -> {
+                    if (child != null && !componentSet.contains(child))
+                        pending.push(child);
+                });
+            }
+        });
+        log.info("Resolved the references of {} values in {} ms", resolvedValues.size(), (System.nanoTime() - start) / 1_000_000);
     }
 
     public String stripSchemaRefPath(String schemaRef) {
@@ -0,0 +1,334 @@
+package openapivisualizer.application.generation.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.security.SecurityRequirement;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.oas.models.tags.Tag;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index of an OpenAPI document that is built in a single streaming pass.
+ * Only the byte ranges of the path items and components are recorded, they are decoded into swagger models
+ * when they are actually needed, so the complete OpenAPI object graph is never held in memory.
+ * YAML documents are transcoded to JSON first, as only JSON parsers report reliable byte offsets.
+ * YAML documents with aliases can not be indexed, they are left to the swagger parser.
+ */
+@Slf4j
+public final class SpecIndex {
+
+    private static final ObjectMapper MAPPER = Json.mapper();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> DOCUMENTATION_FIELDS = Set.of("description", "summary", "example", "examples", "externalDocs");
+    private static final Set<String> INLINED_COMPONENTS = Set.of("parameters", "requestBodies", "responses");
+    private static final int MAX_REF_DEPTH = 16;
+
+    private final byte[] json;
+    private final Map<String, Range> pathItems = new LinkedHashMap<>();
+    private final Map<String, Range> schemas = new LinkedHashMap<>();
+    private final Map<String, Map<String, Range>> components = new HashMap<>();
+    private final Map<String, Range> rootFields = new HashMap<>();
+    private String openApiVersion;
+    private boolean externalRefs = false;
+    //a path item or component that is not an object, these are left to the swagger parser
+    private boolean scalarEntries = false;
+
+    @AllArgsConstructor
+    private static class Range {
+        private final int start;
+        private final int end;
+    }
+
+    private SpecIndex(byte[] json) {
+        this.json = json;
+    }
+
+    public static SpecIndex build(byte[] content) throws IOException {
+        SpecIndex specIndex = new SpecIndex(isJson(content) ? content : yamlToJson(content));
+        specIndex.index();
+        return specIndex;
+    }
+
+    /**
+     * @return true if the document is an OpenAPI 3 document that can be extracted from the index alone
+     */
+    public boolean isSelfContained() {
+        return openApiVersion != null && openApiVersion.startsWith("3") && !externalRefs && !scalarEntries;
+    }
+
+    public int getPathCount() {
+        return pathItems.size();
+    }
+
+    public int getSchemaCount() {
+        return schemas.size();
+    }
+
+    public List<Server> decodeServers() {
+        return decodeList(rootFields.get("servers"), Server.class);
+    }
+
+    public List<SecurityRequirement> decodeSecurity() {
+        return decodeList(rootFields.get("security"), SecurityRequirement.class);
+    }
+
+    public List<Tag> decodeTags() {
+        return decodeList(rootFields.get("tags"), Tag.class);
+    }
+
+    /**
+     * Decodes all path items, without their documentation and with references to parameters,
+     * request bodies and responses inlined
+     */
+    public Paths decodePaths() {
+        Paths paths = new Paths();
+        pathItems.forEach((path, range) -> paths.addPathItem(path, MAPPER.convertValue(readStripped(range), PathItem.class)));
+        return paths;
+    }
+
+    /**
+     * @return a read only view of the component schemas, every schema is decoded when its entry is read
+     */
+    public Map<String, Schema> getSchemas() {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, Schema>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, Schema>> iterator() {
+                        Iterator<Map.Entry<String, Range>> ranges = schemas.entrySet().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return ranges.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Schema> next() {
+                                Map.Entry<String, Range> range = ranges.next();
+                                return new AbstractMap.SimpleImmutableEntry<>(range.getKey(), decodeSchema(range.getValue()));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return schemas.size();
+                    }
+                };
+            }
+
+            @Override
+            public Schema get(Object key) {
+                Range range = schemas.get(key);
+                return range == null ? null : decodeSchema(range);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return schemas.containsKey(key);
+            }
+
+            @Override
+            public Set<String> keySet() {
+                return Collections.unmodifiableSet(schemas.keySet());
+            }
+        };
+    }
+
+    private Schema decodeSchema(Range range) {
+        return MAPPER.convertValue(readStripped(range), Schema.class);
+    }
+
+    private <T> List<T> decodeList(Range range, Class<T> type) {
+        if (range == null)
+            return null;
+        JsonNode node = read(range);
+        List<T> list = new ArrayList<>();
+        node.forEach(element -> list.add(MAPPER.convertValue(element, type)));
+        return list;
+    }
+
+    private JsonNode read(Range range) {
+        try {
+            return MAPPER.readTree(json, range.start, range.end - range.start);
+        } catch (IOException e) {
+            throw new IllegalStateException("Indexed range is not valid JSON", e);
+        }
+    }
+
+    private JsonNode readStripped(Range range) {
+        return readStripped(range, 0);
+    }
+
+    private JsonNode readStripped(Range range, int depth) {
+        JsonNode node = read(range);
+        stripDocumentation(node, false);
+        return inlineComponentRefs(node, depth);
+    }
+
+    /**
+     * Removes the documentation of the node, which is not needed for the extraction.
+     * The keys of property maps are schema names and are kept.
+     */
+    private static void stripDocumentation(JsonNode node, boolean isPropertyMap) {
+        if (node instanceof ObjectNode objectNode) {
+            if (!isPropertyMap)
+                objectNode.remove(DOCUMENTATION_FIELDS);
+            objectNode.fields().forEachRemaining(field ->
+                    stripDocumentation(field.getValue(), !isPropertyMap && field.getKey().equals("properties")));
+        } else if (node instanceof ArrayNode arrayNode) {
+            arrayNode.forEach(element -> stripDocumentation(element, false));
+        }
+    }
+
+    /**
+     * Replaces references to component parameters, request bodies and responses with the referenced component,
+     * like the swagger parser does. Schema references stay references.
+     */
+    private JsonNode inlineComponentRefs(JsonNode node, int depth) {
+        if (node instanceof ObjectNode objectNode) {
+            JsonNode ref = objectNode.get("$ref");
+            if (ref != null && ref.isTextual() && depth < MAX_REF_DEPTH) {
+                String[] refParts = ref.asText().split("/");
+                if (refParts.length == 4 && refParts[0].equals("#") && refParts[1].equals("components")
+                        && INLINED_COMPONENTS.contains(refParts[2])) {
+                    Range range = components.getOrDefault(refParts[2], Map.of()).get(refParts[3]);
+                    if (range != null)
+                        return readStripped(range, depth + 1);
+                    log.warn("Unresolvable reference {}", ref.asText());
+                }
+            }
+            objectNode.fields().forEachRemaining(field -> field.setValue(inlineComponentRefs(field.getValue(), depth)));
+        } else if (node instanceof ArrayNode arrayNode) {
+            for (int i = 0; i < arrayNode.size(); i++)
+                arrayNode.set(i, inlineComponentRefs(arrayNode.get(i), depth));
+        }
+        return node;
+    }
+
+    private void index() throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("OpenAPI document is not an object");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (fieldName) {
+                    case "openapi" -> openApiVersion = parser.getValueAsString();
+                    case "paths" -> indexMap(parser, pathItems);
+                    case "components" -> indexComponents(parser);
+                    default -> {
+                        if (valueToken.isStructStart())
+                            rootFields.put(fieldName, scan(parser));
+                    }
+                }
+            }
+        }
+        log.info("Indexed OpenAPI document with {} paths and {} schemas ({} bytes)", pathItems.size(), schemas.size(), json.length);
+    }
+
+    private void indexComponents(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            scan(parser);
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String componentType = parser.getCurrentName();
+            parser.nextToken();
+            if (componentType.equals("schemas")) {
+                indexMap(parser, schemas);
+            } else if (INLINED_COMPONENTS.contains(componentType)) {
+                indexMap(parser, components.computeIfAbsent(componentType, type -> new HashMap<>()));
+            } else {
+                scan(parser);
+            }
+        }
+    }
+
+    private void indexMap(JsonParser parser, Map<String, Range> ranges) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            scan(parser);
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            Range range = scan(parser);
+            if (range != null)
+                ranges.put(name, range);
+            else
+                scalarEntries = true;
+        }
+    }
+
+    /**
+     * Skips the current value while looking for references to other documents
+     *
+     * @return the byte range of the value if it is an object or array, null for a scalar value.
+     * The text of a scalar does not tell where it ends, as quotes and escapes are not part of it.
+     */
+    private Range scan(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isStructStart())
+            return null;
+        int start = (int) parser.getTokenLocation().getByteOffset();
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            } else if (token == JsonToken.FIELD_NAME && parser.getCurrentName().equals("$ref")) {
+                JsonToken refToken = parser.nextToken();
+                if (refToken == JsonToken.VALUE_STRING && !parser.getText().startsWith("#"))
+                    externalRefs = true;
+                else if (refToken.isStructStart())
+                    depth++;
+            }
+        }
+        //the closing bracket is the last byte of the value
+        return new Range(start, (int) parser.getTokenLocation().getByteOffset() + 1);
+    }
+
+    private static boolean isJson(byte[] content) {
+        for (byte b : content) {
+            if (!Character.isWhitespace(b))
+                return b == '{';
+        }
+        return false;
+    }
+
+    /**
+     * @throws IOException if the document has aliases, the parser reports them as the name of the anchor instead of its value
+     */
+    private static byte[] yamlToJson(byte[] yaml) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(yaml.length);
+        try (YAMLParser parser = new YAMLFactory().createParser(yaml);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            while (parser.nextToken() != null) {
+                if (parser.isCurrentAlias())
+                    throw new IOException("YAML aliases are not supported by the index, alias *" + parser.getText());
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,166 @@
+package openapivisualizer.application.generation.services;
+
+import com.vaadin.flow.shared.Registration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Watches specs for changes, so that they can be extracted again without user interaction.
+ * Local files are watched with a WatchService, remote specs are polled with a check that is supplied by the caller.
+ * The checks of all sessions share a small pool of threads, so a slow server only delays the checks of its own specs
+ * as long as there are threads left. The change listeners are called on the threads of this service.
+ */
+@Slf4j
+@Service
+public class SpecWatchService {
+
+    private final long pollIntervalSeconds;
+    private final ScheduledExecutorService poller;
+    //watched directory -> watched files in it, guarded by this
+    private final Map<Path, List<FileWatch>> fileWatches = new HashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new HashMap<>();
+    private WatchService watchService = null;
+
+    private static class FileWatch {
+        private final Path file;
+        private final Runnable changeListener;
+        private String version;
+
+        private FileWatch(Path file, Runnable changeListener) {
+            this.file = file;
+            this.changeListener = changeListener;
+            this.version = fileVersion(file);
+        }
+    }
+
+    public SpecWatchService(@Value("${openapivisualizer.watch.poll-interval-seconds:30}") long pollIntervalSeconds,
+                            @Value("${openapivisualizer.watch.poll-threads:4}") int pollThreads) {
+        this.pollIntervalSeconds = Math.max(1, pollIntervalSeconds);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.poller = Executors.newScheduledThreadPool(Math.max(1, pollThreads), runnable -> {
+            Thread thread = new Thread(runnable, "spec-poller-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Calls the listener whenever the modification time or size of the file changes
+     */
+    public synchronized Registration watchFile(Path file, Runnable changeListener) throws IOException {
+        Path absoluteFile = file.toAbsolutePath();
+        Path directory = absoluteFile.getParent();
+        if (watchService == null)
+            startWatching();
+        if (!watchKeys.containsKey(directory))
+            watchKeys.put(directory, directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+        FileWatch fileWatch = new FileWatch(absoluteFile, changeListener);
+        fileWatches.computeIfAbsent(directory, d -> new ArrayList<>()).add(fileWatch);
+        log.info("Watching {} for changes", absoluteFile);
+        return () -> removeFileWatch(directory, fileWatch);
+    }
+
+    /**
+     * Runs the check periodically and calls the listener whenever it reports a change
+     *
+     * @param changeCheck returns what has changed, e.g. the new content of the spec, or nothing if it is unchanged
+     */
+    public <T> Registration poll(String source, Supplier<Optional<T>> changeCheck, Consumer<T> changeListener) {
+        ScheduledFuture<?> polling = poller.scheduleWithFixedDelay(() -> {
+            try {
+                changeCheck.get().ifPresent(changeListener);
+            } catch (RuntimeException e) {
+                log.warn("Polling {} failed: {}", source, e.getMessage());
+            }
+        }, pollIntervalSeconds, pollIntervalSeconds, TimeUnit.SECONDS);
+        log.info("Polling {} for changes every {} seconds", source, pollIntervalSeconds);
+        return () -> polling.cancel(false);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws IOException {
+        poller.shutdownNow();
+        if (watchService != null)
+            watchService.close();
+    }
+
+    private synchronized void removeFileWatch(Path directory, FileWatch fileWatch) {
+        List<FileWatch> watches = fileWatches.get(directory);
+        if (watches == null || !watches.remove(fileWatch) || !watches.isEmpty())
+            return;
+        fileWatches.remove(directory);
+        WatchKey watchKey = watchKeys.remove(directory);
+        if (watchKey != null)
+            watchKey.cancel();
+    }
+
+    private void startWatching() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        WatchService service = watchService;
+        Thread watchThread = new Thread(() -> watch(service), "spec-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey watchKey = service.take();
+                //editors often replace files instead of modifying them, so every event of the directory is checked
+                watchKey.pollEvents();
+                watchKey.reset();
+                List<FileWatch> watches;
+                synchronized (this) {
+                    watches = new ArrayList<>(fileWatches.getOrDefault((Path) watchKey.watchable(), List.of()));
+                }
+                watches.forEach(SpecWatchService::checkFile);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            //service has been shut down
+        }
+    }
+
+    private static void checkFile(FileWatch fileWatch) {
+        String version = fileVersion(fileWatch.file);
+        if (version == null || version.equals(fileWatch.version))
+            return;
+        fileWatch.version = version;
+        log.info("{} has changed", fileWatch.file);
+        try {
+            fileWatch.changeListener.run();
+        } catch (RuntimeException e) {
+            log.warn("Handling the change of {} failed: {}", fileWatch.file, e.getMessage());
+        }
+    }
+
+    private static String fileVersion(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (IOException e) {
+            //the file may be in the middle of being replaced
+            return null;
+        }
+    }
+}
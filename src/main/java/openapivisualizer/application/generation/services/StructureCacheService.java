@@ -0,0 +1,109 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import openapivisualizer.application.generation.structuremodel.OpenApiStructure;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application wide cache for extracted OpenApiStructures, so that every UI that opens the same
+ * version of a spec shares one structure instead of downloading and parsing it again.
+ * Cached structures are shared between sessions and must therefore only be read, never modified.
+ * A server may return different specs for different credentials, so structures are only shared between the same credentials.
+ */
+@Slf4j
+@Service
+public class StructureCacheService {
+
+    private final int maxEntries;
+    private final Map<CacheKey, OpenApiStructure> structures;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public StructureCacheService(@Value("${openapivisualizer.structure-cache.max-entries:16}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        //access ordered, so the least recently used structure is evicted first
+        this.structures = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, OpenApiStructure> eldest) {
+                if (size() > StructureCacheService.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    log.info("Evicting cached structure for {}", eldest.getKey().getSource());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up the structure of a spec
+     *
+     * @param source      the path or url of the spec
+     * @param version     the version token of the spec (ETag, Last-Modified or file modification time)
+     * @param credentials the identity of the credentials the spec was requested with, see ClientDataService.credentialIdentity
+     * @return the cached structure, if this exact version of the spec has already been extracted with these credentials
+     */
+    public synchronized Optional<OpenApiStructure> get(String source, String version, String credentials) {
+        OpenApiStructure structure = structures.get(new CacheKey(source, version, credentials));
+        if (structure != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        if (log.isDebugEnabled())
+            log.debug("Structure cache statistics: {}", getStatistics());
+        return Optional.ofNullable(structure);
+    }
+
+    public synchronized void put(String source, String version, String credentials, OpenApiStructure structure) {
+        //older versions of the same spec will never be requested again with these credentials
+        structures.keySet().removeIf(key -> key.getSource().equals(source) && key.getCredentials().equals(credentials)
+                && !key.getVersion().equals(version));
+        structures.put(new CacheKey(source, version, credentials), structure);
+    }
+
+    /**
+     * Drops all cached structures of a spec for all credentials, e.g. when a watch noticed a change that its version token may not reflect
+     */
+    public synchronized void invalidate(String source) {
+        structures.keySet().removeIf(key -> key.getSource().equals(source));
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get(), evictions.get(), structures.size());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final String source;
+        private final String version;
+        private final String credentials;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CacheStatistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size;
+        }
+    }
+}
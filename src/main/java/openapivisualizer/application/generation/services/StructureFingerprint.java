@@ -0,0 +1,156 @@
+package openapivisualizer.application.generation.services;
+
+import openapivisualizer.application.generation.structuremodel.StrucPath;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaWalker;
+import openapivisualizer.application.generation.structuremodel.StrucValue;
+import openapivisualizer.application.generation.structuremodel.TagGroup;
+import org.springframework.http.HttpMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Structural fingerprint of extracted structures.
+ * Two structures have the same fingerprint if they describe the same paths, parameters and schemas,
+ * no matter whether they are the same objects or in which order their maps are iterated.
+ */
+public final class StructureFingerprint {
+
+    private final MessageDigest digest;
+    //schemas that have already been hashed, a schema that is reached again is hashed as a back reference
+    private final Map<StrucSchema, Integer> visitedSchemas = new IdentityHashMap<>();
+    private final Set<StrucSchema> enteredSchemas = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private StructureFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The fingerprint of a tag group covers its name and its paths, everything else of the tag group is derived from them
+     */
+    public static String of(TagGroup tagGroup) {
+        StructureFingerprint fingerprint = new StructureFingerprint();
+        fingerprint.update(tagGroup.getTagName());
+        fingerprint.updatePaths(tagGroup.getPathMap());
+        return fingerprint.finish();
+    }
+
+    public static String of(StrucSchema strucSchema) {
+        StructureFingerprint fingerprint = new StructureFingerprint();
+        fingerprint.updateSchema(strucSchema);
+        return fingerprint.finish();
+    }
+
+    private String finish() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void updatePaths(Map<String, Map<HttpMethod, StrucPath>> pathMap) {
+        update(pathMap.size());
+        new TreeMap<>(pathMap).forEach((path, methods) -> {
+            update(path);
+            update(methods.size());
+            Map<String, StrucPath> sortedMethods = new TreeMap<>();
+            methods.forEach((httpMethod, strucPath) -> sortedMethods.put(httpMethod.name(), strucPath));
+            sortedMethods.forEach((httpMethod, strucPath) -> {
+                update(httpMethod);
+                updatePath(strucPath);
+            });
+        });
+    }
+
+    private void updatePath(StrucPath strucPath) {
+        update(strucPath.getPath());
+        updateParameters(strucPath.getPathParams());
+        updateParameters(strucPath.getQueryParams());
+        updateSchema(strucPath.getRequestStrucSchema());
+        updateSchema(strucPath.getResponseStrucSchema());
+    }
+
+    private void updateParameters(List<StrucPath.StrucParameter> parameters) {
+        update(parameters.size());
+        parameters.forEach(parameter -> {
+            update(parameter.getName());
+            update(parameter.getType() == null ? null : parameter.getType().name());
+            update(parameter.getFormat());
+            update(parameter.isRequired() ? 1 : 0);
+        });
+    }
+
+    private void updateSchema(StrucSchema strucSchema) {
+        if (strucSchema == null) {
+            update(-1);
+            return;
+        }
+        //the schemas are hashed in pre-order, each with the shape of its children, so the order identifies the structure
+        StrucSchemaWalker.walk(strucSchema, new StrucSchemaWalker.Visitor() {
+            @Override
+            public void enter(StrucSchema schema) {
+                visitedSchemas.put(schema, visitedSchemas.size());
+                updateNode(schema);
+            }
+
+            @Override
+            public void revisit(StrucSchema schema) {
+                update(-2);
+                update(visitedSchemas.get(schema));
+            }
+        }, enteredSchemas);
+    }
+
+    private void updateNode(StrucSchema strucSchema) {
+        update(strucSchema.getName());
+        StrucValue strucValue = strucSchema.getStrucValue();
+        if (strucValue == null) {
+            update(-1);
+            return;
+        }
+        update(strucValue.getType() == null ? null : strucValue.getType().name());
+        update(strucValue.getFormat());
+        update(strucValue.getRef());
+        update(strucValue.getArrayElements().size());
+        strucValue.getArrayElements().forEach(element -> update(element == null ? 0 : 1));
+        update(strucValue.getProperties().size());
+        new TreeMap<>(strucValue.getProperties()).forEach((propertyName, property) -> {
+            update(propertyName);
+            update(property == null ? 0 : 1);
+        });
+        update(strucValue.getAdditionalPropertySchema() == null ? 0 : 1);
+        update(strucValue.isClosed() ? 1 : 0);
+        update(strucValue.getVariants().size());
+        strucValue.getVariants().forEach(variant -> update(variant == null ? 0 : 1));
+        update(strucValue.getRequiredProperties().size());
+        new TreeSet<>(strucValue.getRequiredProperties()).forEach(this::update);
+    }
+
+    private void update(String value) {
+        if (value == null) {
+            update(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(bytes.length);
+        digest.update(bytes);
+    }
+
+    private void update(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+}
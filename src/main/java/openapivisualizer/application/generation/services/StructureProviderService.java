@@ -1,21 +1,29 @@
 package openapivisualizer.application.generation.services;
 
 import com.vaadin.flow.spring.annotation.UIScope;
+import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.oas.models.servers.Server;
 import io.swagger.v3.oas.models.tags.Tag;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import openapivisualizer.application.generation.structuremodel.OpenApiStructure;
 import openapivisualizer.application.generation.structuremodel.StrucPath;
 import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucStringTable;
+import openapivisualizer.application.generation.structuremodel.StructureFreezer;
 import openapivisualizer.application.generation.structuremodel.TagGroup;
 import openapivisualizer.application.rest.client.ClientDataService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
-import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,136 +31,316 @@ import java.util.stream.Collectors;
 @UIScope
 public class StructureProviderService {
     public static final String DEFAULT_PARSE_OBJECT = "";
+    public static final String OTHER_TAG = "Other";
     //public static final String DEFAULT_PARSE_OBJECT = "testOpenApi.yaml";
 
     private final SchemaService schemaService;
     private final PathService pathService;
     private final ClientDataService clientDataService;
-
-    public StructureProviderService(SchemaService schemaService, PathService pathService, ClientDataService clientDataService) {
+    private final StructureCacheService structureCacheService;
+    private final StructureSnapshotService structureSnapshotService;
+    private final ExtractionPoolService extractionPoolService;
+    private final TagGroupService tagGroupService;
+    private final boolean streamingExtraction;
+    private final boolean lazyTagGroups;
+
+    public StructureProviderService(SchemaService schemaService, PathService pathService, ClientDataService clientDataService,
+                                    StructureCacheService structureCacheService, StructureSnapshotService structureSnapshotService,
+                                    ExtractionPoolService extractionPoolService, TagGroupService tagGroupService,
+                                    @Value("${openapivisualizer.extraction.streaming:true}") boolean streamingExtraction,
+                                    @Value("${openapivisualizer.extraction.lazy-tag-groups:true}") boolean lazyTagGroups) {
         this.schemaService = schemaService;
         this.pathService = pathService;
         this.clientDataService = clientDataService;
+        this.structureCacheService = structureCacheService;
+        this.structureSnapshotService = structureSnapshotService;
+        this.extractionPoolService = extractionPoolService;
+        this.tagGroupService = tagGroupService;
+        this.streamingExtraction = streamingExtraction;
+        this.lazyTagGroups = lazyTagGroups;
+    }
+
+    /**
+     * The stages of the extraction in the order they are run, a cached structure skips all stages
+     */
+    public enum Stage {
+        DOWNLOAD("Downloading the specification"),
+        PARSE("Parsing the specification"),
+        SCHEMA_MAPPING("Mapping the schemas"),
+        TAG_EXTRACTION("Analysing the tags"),
+        DONE("Done");
+
+        @Getter
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        /**
+         * @return the share of the extraction that is done when this stage starts
+         */
+        public double getProgress() {
+            return (double) ordinal() / DONE.ordinal();
+        }
+    }
+
+    public interface ProgressListener {
+        void stageStarted(Stage stage);
     }
 
     public OpenApiStructure generateApiStructure(String pathToOpenApiFile) {
-        OpenAPI openApi = clientDataService.getOpenApi(pathToOpenApiFile);
+        return generateApiStructure(pathToOpenApiFile, stage -> {
+        });
+    }
 
-        OpenApiStructure openApiStructure = new OpenApiStructure();
+    public OpenApiStructure generateApiStructure(String pathToOpenApiFile, ProgressListener progressListener) {
+        return generateApiStructure(pathToOpenApiFile, null, progressListener);
+    }
 
-        if (openApi.getSecurity() != null)
-            openApiStructure.setHasHttpBasic(openApi.getSecurity().contains("basicAuth"));
+    /**
+     * Extracts the structure of the spec, or returns the cached structure if the spec did not change.
+     * If the calling thread is interrupted, the extraction is aborted after the current stage
+     * with a CancellationException and nothing is cached.
+     *
+     * @param content          the content of the spec if it has already been downloaded, otherwise null
+     * @param progressListener is notified on the calling thread whenever a stage starts
+     */
+    public OpenApiStructure generateApiStructure(String pathToOpenApiFile, byte[] content, ProgressListener progressListener) {
+        String specVersion = clientDataService.getOpenApiVersion(pathToOpenApiFile);
+        String credentials = clientDataService.credentialIdentity();
+        if (specVersion != null) {
+            Optional<OpenApiStructure> cachedStructure = structureCacheService.get(pathToOpenApiFile, specVersion, credentials);
+            if (cachedStructure.isPresent()) {
+                log.info("Using cached structure for {} ({})", pathToOpenApiFile, specVersion);
+                return cachedStructure.get();
+            }
+        }
 
-        if (openApi.getServers() != null) //TODO change -> server url can also come from lower objects
-            openApiStructure.setServers(openApi.getServers().stream().map(Server::getUrl).collect(Collectors.toList()));
+        OpenApiStructure openApiStructure = extractApiStructure(pathToOpenApiFile, content, progressListener);
+        checkCancelled();
+        progressListener.stageStarted(Stage.DONE);
 
-        List<TagGroup> tagGroupList = new ArrayList<>();
+        if (specVersion != null)
+            structureCacheService.put(pathToOpenApiFile, specVersion, credentials, openApiStructure);
+        return openApiStructure;
+    }
 
-        Map<String, StrucSchema> strucSchemaMap = schemaService.mapSchemasToStrucSchemas(openApi.getComponents().getSchemas());
+    /**
+     * The result of mapping a spec, the operations are only converted when their tag is analysed
+     */
+    @AllArgsConstructor
+    private static class MappedSpec {
+        private final Map<String, StrucSchema> strucSchemaMap;
+        private final List<String> tagNames;
+        //the path templates of each tag, they are known before its operations are converted
+        private final Map<String, Set<String>> tagPaths;
+        //the converted operations of a tag, path -> http method -> StrucPath
+        private final Function<String, Map<String, Map<HttpMethod, StrucPath>>> tagOperations;
+        //the operations as they were before any of them was converted, for the snapshot
+        private final List<PendingOperations.EncodedOperation> encodedOperations;
+    }
 
-        //TODO was wenn kein Tag vorhanden
+    private OpenApiStructure extractApiStructure(String pathToOpenApiFile, byte[] content, ProgressListener progressListener) {
+        long start = System.nanoTime();
+        progressListener.stageStarted(Stage.DOWNLOAD);
+        byte[] specContent = content != null ? content : downloadContent(pathToOpenApiFile);
+        String contentHash = specContent == null ? null : StructureSnapshotService.contentHash(specContent);
+        Optional<StructureSnapshotCodec.Snapshot> snapshot = contentHash == null ? Optional.empty()
+                : structureSnapshotService.load(pathToOpenApiFile, contentHash);
 
-        Set<String> tagNames = collectTags(openApi);
-        log.info("Collected {} tags: {}", tagNames.size(), tagNames);
+        OpenApiStructure openApiStructure = new OpenApiStructure();
+        //the swagger model can be collected once the spec is mapped, pending operations are only kept as JSON
+        MappedSpec mappedSpec = snapshot.isPresent() ? restoreSpec(snapshot.get(), openApiStructure)
+                : mapSpec(pathToOpenApiFile, specContent, openApiStructure, progressListener);
+        List<String> tagNames = mappedSpec.tagNames;
+        Function<String, TagGroup> tagGroupLoader = tagGroupLoader(tagGroupService, mappedSpec.tagOperations, mappedSpec.strucSchemaMap);
+
+        if (lazyTagGroups) {
+            //only the tag names are needed for the menu, the operations of a tag are converted and analysed when it is visited
+            openApiStructure.setLazyTagGroups(tagNames, mappedSpec.tagPaths, tagGroupLoader);
+        } else {
+            //The tag groups are independent of each other and are analysed in parallel, the result keeps the order of the tags
+            //remaining tags are skipped once the extracting thread is interrupted, the incomplete result is discarded afterwards
+            long tagGroupStart = System.nanoTime();
+            Thread extractingThread = Thread.currentThread();
+            List<TagGroup> tagGroupList = extractionPoolService.map(tagNames,
+                    tag -> extractingThread.isInterrupted() ? null : tagGroupLoader.apply(tag));
+            log.info("Analysed {} tag groups in {} ms", tagGroupList.size(), elapsedMillis(tagGroupStart));
+            openApiStructure.setTagGroups(tagGroupList);
+        }
+        checkCancelled();
+        log.info("Extraction of {} took {} ms in total", pathToOpenApiFile, elapsedMillis(start));
 
-        tagNames.forEach(tag -> {
-            log.info("Now looking for tag: " + tag);
+        if (snapshot.isEmpty() && contentHash != null)
+            structureSnapshotService.store(pathToOpenApiFile, () -> createSnapshot(pathToOpenApiFile, contentHash, openApiStructure, mappedSpec));
+        return openApiStructure;
+    }
 
-            Map<String, Map<HttpMethod, StrucPath>> pathsForTag = pathService.getPathsForTag(tag, openApi.getPaths(), strucSchemaMap);
-            log.debug("A total of {} paths have been found for the tag {}", pathsForTag.size(), tag);
+    /**
+     * Creates the loader of the tag groups. Lazy structures keep it while they are shared by all sessions through the cache,
+     * so it only references singleton services and the data of the structure, nothing of the session that extracted it
+     * and not the encoded operations of the snapshot.
+     */
+    private static Function<String, TagGroup> tagGroupLoader(TagGroupService tagGroupService,
+                                                             Function<String, Map<String, Map<HttpMethod, StrucPath>>> tagOperations,
+                                                             Map<String, StrucSchema> strucSchemaMap) {
+        return tag -> tagGroupService.createTagGroup(tag, tagOperations.apply(tag), strucSchemaMap);
+    }
 
-            Map<String, StrucSchema> strucViewGroupSchemaMap = createViewGroupSchemaMap(strucSchemaMap, pathsForTag);
-            log.debug("A total of {} schemas have been found for the tag {}", pathsForTag.size(), tag);
+    /**
+     * Reads the spec and maps its schemas and groups its operations, the servers and security are set on the structure directly
+     *
+     * @param content the downloaded content of the spec or null
+     */
+    private MappedSpec mapSpec(String pathToOpenApiFile, byte[] content, OpenApiStructure openApiStructure, ProgressListener progressListener) {
+        long start = System.nanoTime();
+        OpenAPI openApi = readOpenApi(pathToOpenApiFile, content, progressListener);
+        log.info("Read {} in {} ms", pathToOpenApiFile, elapsedMillis(start));
 
-            //Find apipaths for this viewgroup
-            List<String> apiPaths = pathService.getApiPaths(pathsForTag);
-            log.debug("API Paths for tag " + tag + " are: " + apiPaths);
+        if (openApi.getSecurity() != null)
+            openApiStructure.setHasHttpBasic(openApi.getSecurity().contains("basicAuth"));
 
+        if (openApi.getServers() != null) //TODO change -> server url can also come from lower objects
+            openApiStructure.setServers(openApi.getServers().stream().map(Server::getUrl).collect(Collectors.toList()));
 
-            //Find uriPaths
-            Map<String, String> uriPaths = pathService.getUriPaths(pathsForTag, apiPaths);
-            log.debug("URI Paths for tag " + tag + " are: " + uriPaths);
+        checkCancelled();
+        progressListener.stageStarted(Stage.SCHEMA_MAPPING);
+        long schemaStart = System.nanoTime();
+        StrucSchemaScope scope = schemaService.mapSchemasToStrucSchemas(openApi.getComponents().getSchemas());
+        Map<String, StrucSchema> strucSchemaMap = scope.getComponentSchemas();
+        log.info("Mapped {} schemas in {} ms using {} threads", strucSchemaMap.size(), elapsedMillis(schemaStart),
+                extractionPoolService.getParallelism());
 
-            //TODO collect relation paths like /api/artifacts/{id}/representations -> make another list like api paths
-            //TODO relation path need to have following pattern: apipath/{...}/...
-            MultiValueMap<String, String> relationPaths = pathService.getRelationPaths(pathsForTag, apiPaths);
-            log.debug("Relation Paths for tag " + tag + " are: " + relationPaths);
+        //TODO was wenn kein Tag vorhanden
 
-            //TODO put relationPath into StrucViewGroup, Put relationPath into MDVStrucViewGroup
-            TagGroup tagGroup = new TagGroup(tag, apiPaths, uriPaths, relationPaths, strucViewGroupSchemaMap, pathsForTag);
+        checkCancelled();
+        progressListener.stageStarted(Stage.TAG_EXTRACTION);
+        long pathStart = System.nanoTime();
+        StrucStringTable strings = new StrucStringTable();
+        StructureFreezer freezer = new StructureFreezer(strings);
+        strucSchemaMap.values().forEach(freezer::freeze);
+        log.info("Compact component schemas: {}", freezer.getReport());
+        //the operations are only grouped here, each tag converts its operations when it is analysed
+        PendingOperations pendingOperations = pathService.groupOperationsByTag(openApi.getPaths(), scope, strings, OTHER_TAG);
+        //the interning tables would stay reachable with the cached structure, operations converted later are not interned
+        log.info("Schema interning: {}", scope.finishMapping());
+        List<String> tagNames = collectTags(openApi, pendingOperations.getTags()).stream().map(strings::canonical).toList();
+        log.info("Collected {} tags in {} ms: {}", tagNames.size(), elapsedMillis(pathStart), tagNames);
+        return new MappedSpec(strucSchemaMap, tagNames, collectTagPaths(tagNames, pendingOperations), pendingOperations::convert,
+                structureSnapshotService.isEnabled() ? pendingOperations.getEncodedOperations() : List.of());
+    }
 
-            tagGroupList.add(tagGroup);
-        });
-        Map<String, Map<HttpMethod, StrucPath>> pathsNoTag = pathService.getPathsNoTag(openApi.getPaths(), strucSchemaMap);
-        if (!pathsNoTag.isEmpty()) {
-            Map<String, StrucSchema> strucViewGroupSchemaMap = createViewGroupSchemaMap(strucSchemaMap, pathsNoTag);
-            List<String> apiPaths = pathService.getApiPaths(pathsNoTag);
-            Map<String, String> uriPaths = pathService.getUriPaths(pathsNoTag, apiPaths);
-            MultiValueMap<String, String> relationPaths = pathService.getRelationPaths(pathsNoTag, apiPaths);
-            TagGroup tagGroup = new TagGroup("Other",apiPaths, uriPaths, relationPaths, strucViewGroupSchemaMap, pathsNoTag);
-            log.info("Paths without Tag found");
-            tagGroupList.add(tagGroup);
-        }
+    /**
+     * Restores a mapped spec from its snapshot, the tags are analysed the same way as the ones of a freshly mapped spec
+     */
+    private MappedSpec restoreSpec(StructureSnapshotCodec.Snapshot snapshot, OpenApiStructure openApiStructure) {
+        openApiStructure.setHasHttpBasic(snapshot.isHasHttpBasic());
+        openApiStructure.setServers(snapshot.getServers());
+        StrucSchemaScope scope = snapshot.getScope();
+        //the compositions of the components have been merged before the snapshot was written
+        scope.complete();
+        StrucStringTable strings = new StrucStringTable();
+        StructureFreezer freezer = new StructureFreezer(strings);
+        snapshot.getComponentSchemas().values().forEach(freezer::freeze);
+        scope.finishMapping();
+        PendingOperations pendingOperations = pathService.restoreOperations(snapshot.getOperations(), scope, strings);
+        List<String> tagNames = snapshot.getTagNames().stream().map(strings::canonical).toList();
+        return new MappedSpec(snapshot.getComponentSchemas(), tagNames, collectTagPaths(tagNames, pendingOperations),
+                pendingOperations::convert, snapshot.getOperations());
+    }
 
+    private static Map<String, Set<String>> collectTagPaths(List<String> tagNames, PendingOperations pendingOperations) {
+        Map<String, Set<String>> tagPaths = new HashMap<>();
+        tagNames.forEach(tag -> tagPaths.put(tag, pendingOperations.getPaths(tag)));
+        return tagPaths;
+    }
 
-            openApiStructure.setTagGroups(tagGroupList);
+    /**
+     * Runs on the snapshot writer. Only the component schemas and the operations as they were grouped are written,
+     * nothing is converted or resolved for the snapshot.
+     */
+    private static StructureSnapshotCodec.Snapshot createSnapshot(String pathToOpenApiFile, String contentHash,
+                                                                  OpenApiStructure openApiStructure, MappedSpec mappedSpec) {
+        return new StructureSnapshotCodec.Snapshot(pathToOpenApiFile, contentHash, openApiStructure.isHasHttpBasic(),
+                openApiStructure.getServers(), mappedSpec.tagNames, mappedSpec.strucSchemaMap, mappedSpec.encodedOperations, null);
+    }
 
-            return openApiStructure;
+        private static void checkCancelled() {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException("Extraction has been cancelled");
         }
 
-        private Set<String> collectTags (OpenAPI openAPI){
-            Set<String> tags = new HashSet<>();
-            if (openAPI.getTags() != null) {
-                tags.addAll(openAPI.getTags().stream().map(Tag::getName).toList());
-            }
+        private static long elapsedMillis(long startNanos) {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
 
-            if (openAPI.getPaths() != null) {
-                openAPI.getPaths().forEach((key, value) -> tags.addAll(collectTags(value)));
+        /**
+         * Downloads the spec for the streaming extraction and to look up its snapshot
+         *
+         * @return the content or null if it is not needed or could not be downloaded, the swagger parser downloads it then
+         */
+        private byte[] downloadContent(String pathToOpenApiFile) {
+            if (!streamingExtraction && !structureSnapshotService.isEnabled())
+                return null;
+            try {
+                byte[] content = clientDataService.getOpenApiContent(pathToOpenApiFile);
+                checkCancelled();
+                return content;
+            } catch (CancellationException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Downloading {} failed, using the swagger parser: {}", pathToOpenApiFile, e.getMessage());
+                return null;
             }
-            return tags;
         }
 
-        private Set<String> collectTags (PathItem pathItem){
-            Set<String> tags = new HashSet<>();
-            if (pathItem.getGet() != null && pathItem.getGet().getTags() != null)
-                tags.addAll(pathItem.getGet().getTags());
-
-            if (pathItem.getPost() != null && pathItem.getPost().getTags() != null)
-                tags.addAll(pathItem.getPost().getTags());
-
-            if (pathItem.getPut() != null && pathItem.getPut().getTags() != null)
-                tags.addAll(pathItem.getPut().getTags());
-
-            if (pathItem.getDelete() != null && pathItem.getDelete().getTags() != null)
-                tags.addAll(pathItem.getDelete().getTags());
-
-            return tags;
+        private OpenAPI readOpenApi(String pathToOpenApiFile, byte[] content, ProgressListener progressListener) {
+            if (streamingExtraction && content != null) {
+                try {
+                    progressListener.stageStarted(Stage.PARSE);
+                    SpecIndex specIndex = SpecIndex.build(content);
+                    if (specIndex.isSelfContained())
+                        return toOpenApi(specIndex);
+                    log.info("{} is not a self contained OpenAPI 3 document, using the swagger parser", pathToOpenApiFile);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Indexing {} failed, using the swagger parser: {}", pathToOpenApiFile, e.getMessage());
+                }
+            }
+            checkCancelled();
+            //the swagger parser downloads and parses in one go
+            progressListener.stageStarted(Stage.PARSE);
+            return clientDataService.getOpenApi(pathToOpenApiFile);
         }
 
-        private Map<String, StrucSchema> createViewGroupSchemaMap
-        (Map < String, StrucSchema > strucSchemaMap, Map < String, Map < HttpMethod, StrucPath >> pathsForTag){
-            Map<String, StrucSchema> strucViewGroupSchemaMap = new HashMap<>();
-            pathsForTag.forEach((tag, paths) -> paths.forEach((path, pathValue) -> {
-                //Check Request Body Schema
-                if (pathValue.getRequestStrucSchema() != null) {
-
-                    strucViewGroupSchemaMap.put(pathValue.getRequestStrucSchema().getName(), pathValue.getRequestStrucSchema());
-                }
-                //Check Response Body Schema
-                if (pathValue.getResponseStrucSchema() != null) {
-                    strucViewGroupSchemaMap.put(pathValue.getResponseStrucSchema().getName(), pathValue.getResponseStrucSchema());
-                    /*if (schemaService.isPagedSchema(pathValue.getResponseStrucSchema())) {
-                        String pagedSchemaName = schemaService.getPagedSchemaName(pathValue.getResponseStrucSchema());
-                        if(pagedSchemaName!=null) {
-                            strucViewGroupSchemaMap.put(pagedSchemaName, strucSchemaMap.get(pagedSchemaName));
-                        }
-                        else{
-                            strucViewGroupSchemaMap.put(pagedSchemaName, pathValue);
-                        }
-                    }*/
+        /**
+         * Creates an OpenAPI model with only the parts needed for the extraction.
+         * The component schemas are decoded one at a time while they are mapped and are not kept afterwards.
+         */
+        private OpenAPI toOpenApi(SpecIndex specIndex) {
+            OpenAPI openApi = new OpenAPI();
+            openApi.setServers(specIndex.decodeServers());
+            openApi.setSecurity(specIndex.decodeSecurity());
+            openApi.setTags(specIndex.decodeTags());
+            openApi.setPaths(specIndex.decodePaths());
+            Components components = new Components();
+            components.setSchemas(specIndex.getSchemas());
+            openApi.setComponents(components);
+            return openApi;
+        }
 
-                }
-            }));
-            return strucViewGroupSchemaMap;
+        /**
+         * Collects the declared tags and the tags used by operations, sorted by name.
+         * The tag of the operations without tags comes last.
+         */
+        private List<String> collectTags(OpenAPI openAPI, Set<String> usedTags) {
+            Set<String> tags = new TreeSet<>(usedTags);
+            if (openAPI.getTags() != null) {
+                tags.addAll(openAPI.getTags().stream().map(Tag::getName).toList());
+            }
+            List<String> sortedTags = new ArrayList<>(tags);
+            if (sortedTags.remove(OTHER_TAG))
+                sortedTags.add(OTHER_TAG);
+            return sortedTags;
         }
     }
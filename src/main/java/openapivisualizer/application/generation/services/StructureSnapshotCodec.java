@@ -0,0 +1,339 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import openapivisualizer.application.generation.structuremodel.*;
+import org.springframework.http.HttpMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary format of a mapped spec: its component schemas and the operations that are converted when their tag is visited.
+ * Neither the tag groups nor converted operations are part of it, so writing a snapshot does not convert or resolve anything.
+ * StrucSchemas and StrucValues are written once into identity tables and referenced by their index,
+ * so shared and cyclic schema references survive a round trip. Values keep whether their references have been resolved,
+ * unresolved ones are resolved against the restored components on first access again.
+ * All strings are stored once in a string table, the operations are stored as their JSON encoding.
+ */
+final class StructureSnapshotCodec {
+
+    private static final int MAGIC = 0x4F415353; //"OASS"
+    private static final int FORMAT_VERSION = 6;
+
+    private StructureSnapshotCodec() {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Snapshot {
+        private final String source;
+        //SHA-256 of the content of the spec the snapshot was created from
+        private final String contentHash;
+        private final boolean hasHttpBasic;
+        private final List<String> servers;
+        private final List<String> tagNames;
+        private final Map<String, StrucSchema> componentSchemas;
+        //the operations in the order they were grouped, none of them converted
+        private final List<PendingOperations.EncodedOperation> operations;
+        //the scope of the restored component schemas, null for snapshots that are written
+        private final StrucSchemaScope scope;
+    }
+
+    static byte[] encode(Snapshot snapshot) throws IOException {
+        Encoder encoder = new Encoder();
+        encoder.collect(snapshot);
+        byte[] body = encoder.writeBody(snapshot);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length + 1024);
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, snapshot.getSource());
+        writeString(out, snapshot.getContentHash());
+        writeVarInt(out, encoder.strings.size());
+        for (String string : encoder.strings.keySet())
+            writeString(out, string);
+        out.write(body);
+        out.flush();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Reads a snapshot, the body is only read if the header matches.
+     * The component schemas are not frozen and their scope is not completed yet.
+     *
+     * @return the snapshot or nothing if it was created for another source or content
+     */
+    static Optional<Snapshot> decode(ByteBuffer buffer, String source, String contentHash) throws IOException {
+        try {
+            readMagic(buffer);
+            if (!readString(buffer).equals(source) || !readString(buffer).equals(contentHash))
+                return Optional.empty();
+            String[] strings = new String[readVarInt(buffer)];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = readString(buffer);
+            return Optional.of(new Decoder(buffer, strings).readBody(source, contentHash));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new IOException("Snapshot is corrupt", e);
+        }
+    }
+
+    private static void readMagic(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC)
+            throw new IOException("Not a structure snapshot");
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION)
+            throw new IOException("Unsupported snapshot format version " + formatVersion);
+    }
+
+    private static class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final Map<StrucSchema, Integer> schemaIds = new IdentityHashMap<>();
+        private final Map<StrucValue, Integer> valueIds = new IdentityHashMap<>();
+        private final List<StrucSchema> schemas = new ArrayList<>();
+        private final List<StrucValue> values = new ArrayList<>();
+        //the children as they were collected, other threads may resolve the values while the snapshot is written
+        private final List<StrucValue.Children> children = new ArrayList<>();
+
+        /**
+         * Assigns ids to every schema and value of the snapshot.
+         * Walks the schema graph iteratively without resolving it, so neither cycles nor deep schemas are a problem.
+         */
+        private void collect(Snapshot snapshot) {
+            Deque<StrucSchema> pending = new ArrayDeque<>();
+            snapshot.getComponentSchemas().values().forEach(schema -> push(pending, schema));
+            while (!pending.isEmpty()) {
+                StrucSchema schema = pending.pop();
+                if (schemaIds.containsKey(schema))
+                    continue;
+                schemaIds.put(schema, schemas.size());
+                schemas.add(schema);
+                StrucValue value = schema.getStrucValue();
+                if (value == null || valueIds.containsKey(value))
+                    continue;
+                StrucValue.Children valueChildren = value.getChildrenWithoutResolving();
+                valueIds.put(value, values.size());
+                values.add(value);
+                children.add(valueChildren);
+                valueChildren.arrayElements().forEach(element -> push(pending, element));
+                valueChildren.properties().values().forEach(property -> push(pending, property));
+                push(pending, valueChildren.additionalPropertySchema());
+                valueChildren.variants().forEach(variant -> push(pending, variant));
+            }
+        }
+
+        private static void push(Deque<StrucSchema> pending, StrucSchema schema) {
+            if (schema != null)
+                pending.push(schema);
+        }
+
+        private byte[] writeBody(Snapshot snapshot) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(outputStream);
+
+            //values first, the schemas are allocated up front by the decoder
+            writeVarInt(out, schemas.size());
+            writeVarInt(out, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                StrucValue value = values.get(i);
+                StrucValue.Children valueChildren = children.get(i);
+                out.writeByte(value.getType().ordinal());
+                writeStringRef(out, value.getFormat());
+                writeStringRef(out, value.getRef());
+                out.writeBoolean(valueChildren.resolved());
+                writeVarInt(out, valueChildren.arrayElements().size());
+                for (StrucSchema element : valueChildren.arrayElements())
+                    writeSchemaRef(out, element);
+                writeVarInt(out, valueChildren.properties().size());
+                for (Map.Entry<String, StrucSchema> property : valueChildren.properties().entrySet()) {
+                    writeStringRef(out, property.getKey());
+                    writeSchemaRef(out, property.getValue());
+                }
+                writeSchemaRef(out, valueChildren.additionalPropertySchema());
+                out.writeBoolean(value.isClosed());
+                writeVarInt(out, valueChildren.variants().size());
+                for (StrucSchema variant : valueChildren.variants())
+                    writeSchemaRef(out, variant);
+                writeVarInt(out, value.getRequiredProperties().size());
+                for (String requiredProperty : value.getRequiredProperties())
+                    writeStringRef(out, requiredProperty);
+            }
+            for (StrucSchema schema : schemas) {
+                writeStringRef(out, schema.getName());
+                writeVarInt(out, schema.getStrucValue() == null ? 0 : valueIds.get(schema.getStrucValue()) + 1);
+            }
+
+            out.writeBoolean(snapshot.isHasHttpBasic());
+            writeStringList(out, snapshot.getServers());
+            writeStringList(out, snapshot.getTagNames());
+            writeVarInt(out, snapshot.getComponentSchemas().size());
+            for (Map.Entry<String, StrucSchema> schema : snapshot.getComponentSchemas().entrySet()) {
+                writeStringRef(out, schema.getKey());
+                writeSchemaRef(out, schema.getValue());
+            }
+            writeVarInt(out, snapshot.getOperations().size());
+            for (PendingOperations.EncodedOperation operation : snapshot.getOperations()) {
+                writeStringRef(out, operation.path());
+                writeStringRef(out, operation.httpMethod().name());
+                writeStringList(out, operation.tags());
+                writeVarInt(out, operation.json().length);
+                out.write(operation.json());
+            }
+            out.flush();
+            return outputStream.toByteArray();
+        }
+
+        private void writeStringList(DataOutputStream out, List<String> list) throws IOException {
+            if (list == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            writeVarInt(out, list.size());
+            for (String string : list)
+                writeStringRef(out, string);
+        }
+
+        private void writeSchemaRef(DataOutputStream out, StrucSchema schema) throws IOException {
+            writeVarInt(out, schema == null ? 0 : schemaIds.get(schema) + 1);
+        }
+
+        private void writeStringRef(DataOutputStream out, String string) throws IOException {
+            if (string == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            Integer id = strings.get(string);
+            if (id == null) {
+                id = strings.size();
+                strings.put(string, id);
+            }
+            writeVarInt(out, id + 1);
+        }
+    }
+
+    private static class Decoder {
+        private static final DataPropertyType[] TYPES = DataPropertyType.values();
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private StrucSchema[] schemas;
+
+        private Decoder(ByteBuffer buffer, String[] strings) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        private Snapshot readBody(String source, String contentHash) {
+            //the unresolved values are created before the components they are resolved against
+            Map<String, StrucSchema> componentSchemas = new HashMap<>();
+            StrucSchemaScope scope = new StrucSchemaScope(componentSchemas);
+
+            schemas = new StrucSchema[readVarInt(buffer)];
+            for (int i = 0; i < schemas.length; i++)
+                schemas[i] = new StrucSchema();
+
+            StrucValue[] values = new StrucValue[readVarInt(buffer)];
+            for (int i = 0; i < values.length; i++) {
+                DataPropertyType type = TYPES[buffer.get()];
+                String format = readStringRef();
+                String ref = readStringRef();
+                StrucValue value = buffer.get() != 0 ? new StrucValue(type) : new StrucValue(type, scope);
+                value.setFormat(format);
+                value.setRef(ref);
+                int elementCount = readVarInt(buffer);
+                for (int j = 0; j < elementCount; j++)
+                    value.addArrayElement(readSchemaRef());
+                int propertyCount = readVarInt(buffer);
+                for (int j = 0; j < propertyCount; j++)
+                    value.addProperty(readStringRef(), readSchemaRef());
+                value.setAdditionalPropertySchema(readSchemaRef());
+                value.setClosed(buffer.get() != 0);
+                int variantCount = readVarInt(buffer);
+                for (int j = 0; j < variantCount; j++)
+                    value.addVariant(readSchemaRef());
+                int requiredCount = readVarInt(buffer);
+                for (int j = 0; j < requiredCount; j++)
+                    value.addRequiredProperty(readStringRef());
+                values[i] = value;
+            }
+            for (StrucSchema schema : schemas) {
+                schema.setName(readStringRef());
+                int valueId = readVarInt(buffer);
+                schema.setStrucValue(valueId == 0 ? null : values[valueId - 1]);
+            }
+
+            boolean hasHttpBasic = buffer.get() != 0;
+            List<String> servers = readStringList();
+            List<String> tagNames = readStringList();
+            int componentCount = readVarInt(buffer);
+            for (int i = 0; i < componentCount; i++)
+                componentSchemas.put(readStringRef(), readSchemaRef());
+            int operationCount = readVarInt(buffer);
+            List<PendingOperations.EncodedOperation> operations = new ArrayList<>(operationCount);
+            for (int i = 0; i < operationCount; i++) {
+                String path = readStringRef();
+                HttpMethod httpMethod = HttpMethod.valueOf(readStringRef());
+                List<String> tags = readStringList();
+                byte[] json = new byte[readVarInt(buffer)];
+                buffer.get(json);
+                operations.add(new PendingOperations.EncodedOperation(path, httpMethod, tags, json));
+            }
+            return new Snapshot(source, contentHash, hasHttpBasic, servers, tagNames, componentSchemas, operations, scope);
+        }
+
+        private List<String> readStringList() {
+            int size = readVarInt(buffer);
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                list.add(readStringRef());
+            return list;
+        }
+
+        private StrucSchema readSchemaRef() {
+            int id = readVarInt(buffer);
+            return id == 0 ? null : schemas[id - 1];
+        }
+
+        private String readStringRef() {
+            int id = readVarInt(buffer);
+            return id == 0 ? null : strings[id - 1];
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readVarInt(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,133 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Persists mapped specs as binary snapshots, so that they survive a restart of the application.
+ * A snapshot is only used again for the same content of the spec, which is compared by its SHA-256 hash.
+ * Snapshots are read when a spec is loaded, after its content has been downloaded.
+ */
+@Slf4j
+@Service
+public class StructureSnapshotService {
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final boolean enabled;
+    private final Path snapshotDirectory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "structure-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StructureSnapshotService(@Value("${openapivisualizer.snapshot.enabled:true}") boolean enabled,
+                                    @Value("${openapivisualizer.snapshot.directory:snapshots}") String snapshotDirectory) {
+        this.enabled = enabled;
+        this.snapshotDirectory = Path.of(snapshotDirectory);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the snapshot of a spec
+     *
+     * @param source      the path or url of the spec
+     * @param contentHash the hash of the current content of the spec, see contentHash
+     * @return the snapshot or nothing if there is none for this content
+     */
+    Optional<StructureSnapshotCodec.Snapshot> load(String source, String contentHash) {
+        Path snapshotFile = snapshotDirectory.resolve(fileName(source));
+        if (!enabled || !Files.isRegularFile(snapshotFile))
+            return Optional.empty();
+        try {
+            Optional<StructureSnapshotCodec.Snapshot> snapshot = StructureSnapshotCodec.decode(map(snapshotFile), source, contentHash);
+            if (snapshot.isPresent())
+                log.info("Loaded structure snapshot of {}", source);
+            else
+                log.info("The snapshot of {} was created from different content", source);
+            return snapshot;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable snapshot {}: {}", snapshotFile, e.getMessage());
+            try {
+                Files.deleteIfExists(snapshotFile);
+            } catch (IOException ignored) {
+                //will be overwritten by the next snapshot of the same source
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot in the background, replacing older snapshots of the same source.
+     * The snapshot is created on the writer thread, operations that have not been converted yet are converted there.
+     *
+     * @param source   the path or url of the spec
+     * @param snapshot creates the snapshot of the mapped spec
+     */
+    void store(String source, Supplier<StructureSnapshotCodec.Snapshot> snapshot) {
+        if (!enabled)
+            return;
+        writer.execute(() -> {
+            Path snapshotFile = snapshotDirectory.resolve(fileName(source));
+            try {
+                byte[] encodedSnapshot = StructureSnapshotCodec.encode(snapshot.get());
+                Files.createDirectories(snapshotDirectory);
+                Path temporaryFile = Files.createTempFile(snapshotDirectory, "structure", ".tmp");
+                Files.write(temporaryFile, encodedSnapshot);
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Wrote structure snapshot of {} ({} bytes)", source, encodedSnapshot.length);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not write snapshot of {}: {}", source, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    private static ByteBuffer map(Path snapshotFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return the hash that identifies the content of a spec in its snapshot
+     */
+    static String contentHash(byte[] content) {
+        return sha256(content);
+    }
+
+    private static String fileName(String source) {
+        return sha256(source.getBytes(StandardCharsets.UTF_8)) + SNAPSHOT_SUFFIX;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -47,7 +47,7 @@ public class TagGroupConverterService {
                     .filter(entry -> !tagGroup.getUriPaths().containsValue(entry.getKey())
                             && !tagGroup.getApiPaths().contains(entry.getKey())
                             && tagGroup.getRelationPaths().values().stream().noneMatch(values -> values.contains(entry.getKey())))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> new HashMap<>(entry.getValue())));
 //        }
 
         notMatchedPaths.forEach((path, httpMethodStrucPathMap) -> {
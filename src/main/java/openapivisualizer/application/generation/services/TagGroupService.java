@@ -0,0 +1,85 @@
+package openapivisualizer.application.generation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import openapivisualizer.application.generation.structuremodel.StrucPath;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.TagGroup;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyses the converted operations of a tag into its TagGroup.
+ * Stateless and shared by all sessions, the tag groups of lazy structures in the shared cache are analysed with it
+ * no matter which session visits the tag first.
+ */
+@Slf4j
+@Service
+public class TagGroupService {
+
+    private final PathService pathService;
+
+    public TagGroupService(PathService pathService) {
+        this.pathService = pathService;
+    }
+
+    public TagGroup createTagGroup(String tag, Map<String, Map<HttpMethod, StrucPath>> pathsForTag, Map<String, StrucSchema> strucSchemaMap) {
+        log.info("Now looking for tag: " + tag);
+        log.debug("A total of {} paths have been found for the tag {}", pathsForTag.size(), tag);
+
+        Map<String, StrucSchema> strucViewGroupSchemaMap = createViewGroupSchemaMap(strucSchemaMap, pathsForTag);
+        log.debug("A total of {} schemas have been found for the tag {}", pathsForTag.size(), tag);
+
+        //Find apipaths for this viewgroup
+        List<String> apiPaths = pathService.getApiPaths(pathsForTag);
+        log.debug("API Paths for tag " + tag + " are: " + apiPaths);
+
+
+        //Find uriPaths
+        PathTemplateTrie<String> pathTrie = pathService.createPathTrie(pathsForTag);
+        Map<String, String> uriPaths = pathService.getUriPaths(pathTrie, apiPaths);
+        log.debug("URI Paths for tag " + tag + " are: " + uriPaths);
+
+        //TODO collect relation paths like /api/artifacts/{id}/representations -> make another list like api paths
+        //TODO relation path need to have following pattern: apipath/{...}/...
+        MultiValueMap<String, String> relationPaths = pathService.getRelationPaths(pathsForTag, pathTrie, apiPaths);
+        log.debug("Relation Paths for tag " + tag + " are: " + relationPaths);
+
+        //TODO put relationPath into StrucViewGroup, Put relationPath into MDVStrucViewGroup
+        TagGroup tagGroup = new TagGroup(tag, apiPaths, uriPaths, relationPaths, strucViewGroupSchemaMap, pathsForTag);
+        //a reload compares the tag groups by their fingerprints to keep the presenters of unchanged tags
+        tagGroup.setFingerprint(StructureFingerprint.of(tagGroup));
+        return tagGroup;
+    }
+
+    private Map<String, StrucSchema> createViewGroupSchemaMap
+    (Map < String, StrucSchema > strucSchemaMap, Map < String, Map < HttpMethod, StrucPath >> pathsForTag){
+        Map<String, StrucSchema> strucViewGroupSchemaMap = new HashMap<>();
+        pathsForTag.forEach((tag, paths) -> paths.forEach((path, pathValue) -> {
+            //Check Request Body Schema
+            if (pathValue.getRequestStrucSchema() != null) {
+
+                strucViewGroupSchemaMap.put(pathValue.getRequestStrucSchema().getName(), pathValue.getRequestStrucSchema());
+            }
+            //Check Response Body Schema
+            if (pathValue.getResponseStrucSchema() != null) {
+                strucViewGroupSchemaMap.put(pathValue.getResponseStrucSchema().getName(), pathValue.getResponseStrucSchema());
+                /*if (schemaService.isPagedSchema(pathValue.getResponseStrucSchema())) {
+                    String pagedSchemaName = schemaService.getPagedSchemaName(pathValue.getResponseStrucSchema());
+                    if(pagedSchemaName!=null) {
+                        strucViewGroupSchemaMap.put(pagedSchemaName, strucSchemaMap.get(pagedSchemaName));
+                    }
+                    else{
+                        strucViewGroupSchemaMap.put(pagedSchemaName, pathValue);
+                    }
+                }*/
+
+            }
+        }));
+        return strucViewGroupSchemaMap;
+    }
+}
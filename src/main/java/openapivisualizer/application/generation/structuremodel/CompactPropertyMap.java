@@ -0,0 +1,104 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable property table of a frozen StrucValue, backed by two arrays sorted by property name.
+ * Needs two references per property instead of a HashMap node each, lookups are binary searches
+ * and the properties are iterated in name order.
+ */
+final class CompactPropertyMap extends AbstractMap<String, StrucSchema> {
+
+    private final String[] names;
+    private final StrucSchema[] properties;
+
+    private CompactPropertyMap(String[] names, StrucSchema[] properties) {
+        this.names = names;
+        this.properties = properties;
+    }
+
+    /**
+     * @return the shared empty map if there are no properties, a compact copy otherwise
+     */
+    static Map<String, StrucSchema> copyOf(Map<String, StrucSchema> properties, StrucStringTable strings) {
+        if (properties.isEmpty())
+            return Map.of();
+        String[] names = new String[properties.size()];
+        StrucSchema[] values = new StrucSchema[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, StrucSchema> property : new TreeMap<>(properties).entrySet()) {
+            names[i] = strings.canonical(property.getKey());
+            values[i] = property.getValue();
+            i++;
+        }
+        return new CompactPropertyMap(names, values);
+    }
+
+    /**
+     * Replaces the properties in place, only used to resolve references while the owning value holds its lock
+     */
+    void replaceProperties(UnaryOperator<StrucSchema> replacement) {
+        for (int i = 0; i < properties.length; i++)
+            properties[i] = replacement.apply(properties[i]);
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public StrucSchema get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : properties[index];
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof String name))
+            return -1;
+        return Arrays.binarySearch(names, name);
+    }
+
+    @Override
+    public Set<Entry<String, StrucSchema>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, StrucSchema>> iterator() {
+                return new Iterator<>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.length;
+                    }
+
+                    @Override
+                    public Entry<String, StrucSchema> next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(names[index], properties[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package openapivisualizer.application.generation.structuremodel;
+
+public enum CompositionType {
+    ALL_OF,
+    ONE_OF,
+    ANY_OF
+}
@@ -1,11 +1,17 @@
 package openapivisualizer.application.generation.structuremodel;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 @Getter
 @Setter
@@ -17,4 +23,66 @@ public class OpenApiStructure {
     private List<String> servers = new ArrayList<>();
 
     private List<TagGroup> tagGroups = new ArrayList<>();
+
+    //In lazy mode only the tag names are known up front, the tag groups are analysed when they are first requested
+    @Setter(AccessLevel.NONE)
+    private List<String> lazyTagNames = null;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<String, Set<String>> lazyTagPaths = Map.of();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Function<String, TagGroup> tagGroupLoader = null;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, TagGroup> loadedTagGroups = new ConcurrentHashMap<>();
+
+    /**
+     * @param tagPaths the path templates of each tag, to find the tag of a path before it is analysed
+     */
+    public void setLazyTagGroups(List<String> tagNames, Map<String, Set<String>> tagPaths, Function<String, TagGroup> tagGroupLoader) {
+        this.lazyTagNames = tagNames;
+        this.lazyTagPaths = tagPaths;
+        this.tagGroupLoader = tagGroupLoader;
+        this.tagGroups = new ArrayList<>();
+    }
+
+    public boolean isLazy() {
+        return tagGroupLoader != null;
+    }
+
+    public List<String> getTagNames() {
+        return isLazy() ? lazyTagNames : tagGroups.stream().map(TagGroup::getTagName).toList();
+    }
+
+    /**
+     * @return the path templates of the operations of a tag, without analysing the tag
+     */
+    public Set<String> getTagPaths(String tagName) {
+        if (isLazy())
+            return lazyTagPaths.getOrDefault(tagName, Set.of());
+        TagGroup tagGroup = getTagGroup(tagName);
+        return tagGroup == null ? Set.of() : tagGroup.getPathMap().keySet();
+    }
+
+    /**
+     * Returns the tag group of a tag, in lazy mode it is analysed on the first call and cached afterwards
+     */
+    public TagGroup getTagGroup(String tagName) {
+        if (isLazy()) {
+            if (!lazyTagNames.contains(tagName))
+                return null;
+            return loadedTagGroups.computeIfAbsent(tagName, tagGroupLoader);
+        }
+        return tagGroups.stream().filter(tagGroup -> tagGroup.getTagName().equals(tagName)).findFirst().orElse(null);
+    }
+
+    /**
+     * Returns all tag groups, in lazy mode all of them are analysed first
+     */
+    public List<TagGroup> getAllTagGroups() {
+        if (isLazy())
+            return lazyTagNames.stream().map(this::getTagGroup).filter(Objects::nonNull).toList();
+        return tagGroups;
+    }
 }
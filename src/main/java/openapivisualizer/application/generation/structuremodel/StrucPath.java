@@ -1,5 +1,6 @@
 package openapivisualizer.application.generation.structuremodel;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -16,8 +17,40 @@ public class StrucPath {
     private HttpMethod httpMethod;
     private StrucSchema responseStrucSchema;
     private StrucSchema requestStrucSchema;
-    private List<StrucParameter> queryParams = new ArrayList<>();
-    private List<StrucParameter> pathParams = new ArrayList<>();
+    //operations without parameters share the empty list, see freeze
+    @Setter(AccessLevel.NONE)
+    private List<StrucParameter> queryParams = List.of();
+    @Setter(AccessLevel.NONE)
+    private List<StrucParameter> pathParams = List.of();
+
+    public void addQueryParam(StrucParameter queryParam) {
+        if (queryParams.isEmpty())
+            queryParams = new ArrayList<>(2);
+        queryParams.add(queryParam);
+    }
+
+    public void addPathParam(StrucParameter pathParam) {
+        if (pathParams.isEmpty())
+            pathParams = new ArrayList<>(2);
+        pathParams.add(pathParam);
+    }
+
+    /**
+     * Replaces the parameter lists with immutable copies and the strings with their canonical instances,
+     * the schemas are frozen separately
+     */
+    public void freeze(StrucStringTable strings) {
+        path = strings.canonical(path);
+        queryParams = freezeParameters(queryParams, strings);
+        pathParams = freezeParameters(pathParams, strings);
+    }
+
+    private static List<StrucParameter> freezeParameters(List<StrucParameter> parameters, StrucStringTable strings) {
+        if (parameters.isEmpty())
+            return List.of();
+        return List.copyOf(parameters.stream().map(parameter -> new StrucParameter(strings.canonical(parameter.getName()),
+                parameter.getType(), strings.canonical(parameter.getFormat()), parameter.isRequired())).toList());
+    }
 
     @Getter
     @AllArgsConstructor
@@ -0,0 +1,195 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Merges composed schemas of a StrucSchemaScope.
+ * An allOf value gets the union of the properties and required properties of its parts, a oneOf or anyOf value
+ * keeps its parts as variants and gets the union of the properties of the variants, so every column that one of
+ * the variants may have is known. The parts are only complete once all component schemas are mapped, so compositions
+ * that are created before are merged when the scope is completed, later ones right away.
+ * The merge result of the same parts is computed once: parts that refer to the same component are the same part.
+ */
+final class StrucSchemaComposer {
+
+    private final StrucSchemaScope scope;
+    private final Queue<StrucValue> pendingCompositions = new ConcurrentLinkedQueue<>();
+    //guarded by this
+    private final Map<PartsKey, Merge> merges = new HashMap<>();
+    private final Set<StrucValue> merging = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean complete = false;
+    private int compositions = 0;
+    private int reusedMerges = 0;
+
+    StrucSchemaComposer(StrucSchemaScope scope) {
+        this.scope = scope;
+    }
+
+    StrucValue compose(CompositionType compositionType, List<StrucSchema> parts) {
+        StrucValue value = new StrucValue(DataPropertyType.OBJECT, scope);
+        value.setComposition(compositionType, parts);
+        if (complete)
+            merge(value);
+        else
+            pendingCompositions.add(value);
+        return value;
+    }
+
+    synchronized void complete() {
+        complete = true;
+        StrucValue value;
+        while ((value = pendingCompositions.poll()) != null)
+            merge(value);
+    }
+
+    /**
+     * Releases the memoised merges, compositions that are created afterwards are merged without them
+     */
+    synchronized void release() {
+        merges.clear();
+    }
+
+    synchronized String getReport() {
+        return String.format("%d compositions merged, %d of them reused an earlier merge", compositions, reusedMerges);
+    }
+
+    private synchronized void merge(StrucValue value) {
+        //compositions that are part of themselves stop at the composition that is already being merged
+        if (value.getCompositionType() == null || !merging.add(value))
+            return;
+        try {
+            List<StrucValue> partValues = new ArrayList<>();
+            for (StrucSchema part : value.getCompositionParts()) {
+                StrucValue partValue = resolvePart(part);
+                if (partValue != null)
+                    partValues.add(partValue);
+            }
+            PartsKey key = new PartsKey(value.getCompositionType(), partValues);
+            Merge merge = merges.get(key);
+            if (merge == null) {
+                merge = new Merge(value.getCompositionType(), partValues);
+                merges.put(key, merge);
+            } else {
+                reusedMerges++;
+            }
+            compositions++;
+            merge.applyTo(value);
+        } finally {
+            merging.remove(value);
+        }
+    }
+
+    /**
+     * @return the value of the part with references resolved and compositions merged, null if it can not be resolved
+     */
+    private StrucValue resolvePart(StrucSchema part) {
+        if (part == null || part.getStrucValue() == null)
+            return null;
+        StrucValue partValue = part.getStrucValue();
+        if (partValue.getType() == DataPropertyType.SCHEMA) {
+            StrucSchema component = scope.resolve(partValue.getRef());
+            if (component == null || component.getStrucValue() == null
+                    || component.getStrucValue().getType() == DataPropertyType.SCHEMA)
+                return null;
+            partValue = component.getStrucValue();
+        }
+        merge(partValue);
+        return partValue;
+    }
+
+    /**
+     * The merged fields of a composition, the children stay unresolved and are resolved with the composed value
+     */
+    private static class Merge {
+        private final DataPropertyType type;
+        private final String format;
+        private final String ref;
+        private final List<StrucSchema> arrayElements = new ArrayList<>();
+        private final Map<String, StrucSchema> properties = new LinkedHashMap<>();
+        private final Set<String> requiredProperties = new LinkedHashSet<>();
+        private StrucSchema additionalPropertySchema;
+
+        private Merge(CompositionType compositionType, List<StrucValue> parts) {
+            boolean hasObjectPart = parts.stream().anyMatch(part -> part.getType() == DataPropertyType.OBJECT);
+            boolean sameType = parts.stream().map(StrucValue::getType).distinct().count() == 1;
+            if (hasObjectPart || parts.isEmpty()) {
+                type = DataPropertyType.OBJECT;
+                format = null;
+                ref = null;
+                parts.stream().filter(part -> part.getType() == DataPropertyType.OBJECT).forEach(part -> {
+                    //the first part that declares a property defines it
+                    part.getUnresolvedProperties().forEach(properties::putIfAbsent);
+                    if (additionalPropertySchema == null)
+                        additionalPropertySchema = part.getUnresolvedAdditionalPropertySchema();
+                    //a property is only required by a oneOf or anyOf if it is required by every variant
+                    if (compositionType == CompositionType.ALL_OF)
+                        requiredProperties.addAll(part.getRequiredProperties());
+                });
+            } else if (compositionType == CompositionType.ALL_OF || sameType) {
+                //e.g. allOf a string schema and a schema that only adds a format
+                StrucValue first = parts.get(0);
+                type = first.getType();
+                format = parts.stream().map(StrucValue::getFormat).filter(partFormat -> partFormat != null).findFirst().orElse(null);
+                ref = first.getRef();
+                arrayElements.addAll(first.getUnresolvedArrayElements());
+            } else {
+                //variants of different plain types can only be shown as text
+                type = DataPropertyType.STRING;
+                format = null;
+                ref = null;
+            }
+            if (compositionType != CompositionType.ALL_OF && hasObjectPart && parts.stream().allMatch(part -> part.getType() == DataPropertyType.OBJECT)) {
+                Set<String> commonRequired = new LinkedHashSet<>(parts.get(0).getRequiredProperties());
+                parts.forEach(part -> commonRequired.retainAll(part.getRequiredProperties()));
+                requiredProperties.addAll(commonRequired);
+            }
+        }
+
+        private void applyTo(StrucValue value) {
+            value.setType(type);
+            value.setFormat(format);
+            value.setRef(ref);
+            arrayElements.forEach(value::addArrayElement);
+            properties.forEach(value::addProperty);
+            requiredProperties.forEach(value::addRequiredProperty);
+            value.setAdditionalPropertySchema(additionalPropertySchema);
+            if (value.getCompositionType() != CompositionType.ALL_OF)
+                value.getCompositionParts().forEach(value::addVariant);
+            value.setComposition(null, List.of());
+        }
+    }
+
+    /**
+     * Equal if the composition types are equal and the parts are the same instances
+     */
+    private record PartsKey(CompositionType compositionType, List<StrucValue> parts) {
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PartsKey other) || compositionType != other.compositionType || parts.size() != other.parts.size())
+                return false;
+            for (int i = 0; i < parts.size(); i++) {
+                if (parts.get(i) != other.parts.get(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = compositionType.hashCode();
+            for (StrucValue part : parts)
+                hash = 31 * hash + System.identityHashCode(part);
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one instance between structurally identical StrucValues and StrucSchemas of one extraction.
+ * Schemas are interned bottom up: the children of a schema are already interned when the schema itself is,
+ * so two schemas are equal if their own fields are equal and their children are the same instances.
+ * Interned schemas are shared by all their users and must not be modified afterwards.
+ * Can be used by multiple threads at the same time.
+ */
+public class StrucSchemaInterner {
+
+    private final Map<ValueKey, StrucValue> values = new ConcurrentHashMap<>();
+    private final Map<SchemaKey, StrucSchema> schemas = new ConcurrentHashMap<>();
+    private final AtomicLong internedSchemas = new AtomicLong();
+    private final AtomicLong sharedSchemas = new AtomicLong();
+    private final AtomicLong sharedValues = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * @return an existing schema that is structurally identical to the given one, or the given schema
+     */
+    public StrucSchema intern(StrucSchema strucSchema) {
+        if (closed || strucSchema.getStrucValue() == null)
+            return strucSchema;
+        internedSchemas.incrementAndGet();
+        StrucValue value = strucSchema.getStrucValue();
+        StrucValue sharedValue = values.putIfAbsent(new ValueKey(value), value);
+        if (sharedValue != null) {
+            sharedValues.incrementAndGet();
+            strucSchema.setStrucValue(sharedValue);
+        }
+        StrucSchema sharedSchema = schemas.putIfAbsent(new SchemaKey(strucSchema.getName(), strucSchema.getStrucValue()), strucSchema);
+        if (sharedSchema == null)
+            return strucSchema;
+        sharedSchemas.incrementAndGet();
+        return sharedSchema;
+    }
+
+    /**
+     * Stops interning and releases the lookup tables, schemas interned so far stay shared
+     */
+    public void close() {
+        closed = true;
+        values.clear();
+        schemas.clear();
+    }
+
+    /**
+     * Only counts the shared instances, the memory that is saved is measured by SchemaInterningFootprintTest
+     */
+    public String getReport() {
+        return String.format("%d of %d mapped schemas were replaced by shared instances, %d values were shared (%d distinct values)",
+                sharedSchemas.get(), internedSchemas.get(), sharedValues.get(), values.size());
+    }
+
+    /**
+     * Equal if type, format, ref, the required properties and the composition type are equal
+     * and the children, variants and composition parts are the same instances
+     */
+    private static final class ValueKey {
+        private final DataPropertyType type;
+        private final String format;
+        private final String ref;
+        private final List<StrucSchema> arrayElements;
+        private final List<String> propertyNames = new ArrayList<>();
+        private final List<StrucSchema> properties = new ArrayList<>();
+        private final List<String> requiredProperties;
+        private final StrucSchema additionalPropertySchema;
+        private final boolean closed;
+        private final List<StrucSchema> variants;
+        private final CompositionType compositionType;
+        private final List<StrucSchema> compositionParts;
+        private final int hash;
+
+        private ValueKey(StrucValue value) {
+            this.type = value.getType();
+            this.format = value.getFormat();
+            this.ref = value.getRef();
+            this.arrayElements = new ArrayList<>(value.getUnresolvedArrayElements());
+            new TreeMap<>(value.getUnresolvedProperties()).forEach((name, property) -> {
+                propertyNames.add(name);
+                properties.add(property);
+            });
+            this.requiredProperties = value.getRequiredProperties().stream().sorted().toList();
+            this.additionalPropertySchema = value.getUnresolvedAdditionalPropertySchema();
+            this.closed = value.isClosed();
+            this.variants = new ArrayList<>(value.getUnresolvedVariants());
+            this.compositionType = value.getCompositionType();
+            this.compositionParts = new ArrayList<>(value.getCompositionParts());
+            int h = Objects.hash(type, format, ref, propertyNames, requiredProperties, closed, compositionType);
+            for (StrucSchema element : arrayElements)
+                h = 31 * h + System.identityHashCode(element);
+            for (StrucSchema property : properties)
+                h = 31 * h + System.identityHashCode(property);
+            for (StrucSchema variant : variants)
+                h = 31 * h + System.identityHashCode(variant);
+            for (StrucSchema part : compositionParts)
+                h = 31 * h + System.identityHashCode(part);
+            this.hash = 31 * h + System.identityHashCode(additionalPropertySchema);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ValueKey other))
+                return false;
+            return hash == other.hash && type == other.type && Objects.equals(format, other.format)
+                    && Objects.equals(ref, other.ref) && propertyNames.equals(other.propertyNames)
+                    && requiredProperties.equals(other.requiredProperties)
+                    && sameInstances(arrayElements, other.arrayElements) && sameInstances(properties, other.properties)
+                    && additionalPropertySchema == other.additionalPropertySchema && closed == other.closed
+                    && sameInstances(variants, other.variants) && compositionType == other.compositionType
+                    && sameInstances(compositionParts, other.compositionParts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        private static boolean sameInstances(List<StrucSchema> a, List<StrucSchema> b) {
+            if (a.size() != b.size())
+                return false;
+            for (int i = 0; i < a.size(); i++) {
+                if (a.get(i) != b.get(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Equal if the names are equal and the values are the same instance
+     */
+    private static final class SchemaKey {
+        private final String name;
+        private final StrucValue value;
+
+        private SchemaKey(String name, StrucValue value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SchemaKey other && Objects.equals(name, other.name) && value == other.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(name) + System.identityHashCode(value);
+        }
+    }
+}
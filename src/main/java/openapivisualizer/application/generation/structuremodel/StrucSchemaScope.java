@@ -0,0 +1,93 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The component schemas that references of StrucValues are resolved against.
+ * References are resolved when a StrucValue is first accessed, see StrucValue.
+ */
+public class StrucSchemaScope {
+
+    private final Map<String, StrucSchema> componentSchemas;
+    private final StrucSchemaInterner interner = new StrucSchemaInterner();
+    private final StrucSchemaComposer composer = new StrucSchemaComposer(this);
+
+    /**
+     * @param componentSchemas the component schemas by name, the map may still be filled after the scope is created
+     */
+    public StrucSchemaScope(Map<String, StrucSchema> componentSchemas) {
+        this.componentSchemas = componentSchemas;
+    }
+
+    /**
+     * Shares structurally identical inline schemas of this scope, see StrucSchemaInterner
+     */
+    public StrucSchema intern(StrucSchema strucSchema) {
+        return interner.intern(strucSchema);
+    }
+
+    /**
+     * Creates the value of an allOf, oneOf or anyOf schema, see StrucSchemaComposer.
+     * Until the scope is completed the value is only a placeholder without properties.
+     *
+     * @param parts the mapped parts of the composition, references to components stay references
+     */
+    public StrucValue compose(CompositionType compositionType, List<StrucSchema> parts) {
+        return composer.compose(compositionType, parts);
+    }
+
+    /**
+     * Marks the component schemas as complete and merges the compositions that have been created so far,
+     * compositions that are created afterwards are merged right away
+     */
+    public void complete() {
+        composer.complete();
+    }
+
+    public String getCompositionReport() {
+        return composer.getReport();
+    }
+
+    /**
+     * Ends the mapping of this scope. The lookup tables of the interning and of the composition are released,
+     * as unresolved values keep their scope until they are accessed. Schemas that are mapped afterwards are not shared.
+     *
+     * @return a report of the instances that are shared
+     */
+    public String finishMapping() {
+        String report = interner.getReport();
+        interner.close();
+        composer.release();
+        return report;
+    }
+
+    public Map<String, StrucSchema> getComponentSchemas() {
+        return Collections.unmodifiableMap(componentSchemas);
+    }
+
+    /**
+     * Resolves a reference to a component schema. Components that are only a reference to another component
+     * are followed until a component with an actual value is found; a cycle of such references ends at the last
+     * component before the cycle closes.
+     *
+     * @return the referenced component or null if there is no component with that name
+     */
+    public StrucSchema resolve(String ref) {
+        StrucSchema component = componentSchemas.get(ref);
+        Set<String> visitedRefs = new HashSet<>();
+        visitedRefs.add(ref);
+        while (component != null && component.getStrucValue() != null
+                && component.getStrucValue().getType() == DataPropertyType.SCHEMA
+                && visitedRefs.add(component.getStrucValue().getRef())) {
+            StrucSchema aliasedComponent = componentSchemas.get(component.getStrucValue().getRef());
+            if (aliasedComponent == null)
+                break;
+            component = aliasedComponent;
+        }
+        return component;
+    }
+}
@@ -0,0 +1,75 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.*;
+
+/**
+ * Walks StrucSchema graphs depth first with an explicit stack, so deeply nested schemas cannot overflow the stack.
+ * Every schema is entered once, schemas that are reached again, e.g. through recursive references, are only revisited.
+ */
+public final class StrucSchemaWalker {
+
+    public interface Visitor {
+        /**
+         * Called when a schema is reached for the first time, its children are walked afterwards
+         */
+        void enter(StrucSchema schema);
+
+        /**
+         * Called when a schema that has already been entered is reached again
+         */
+        default void revisit(StrucSchema schema) {
+        }
+    }
+
+    private StrucSchemaWalker() {
+    }
+
+    /**
+     * Walks the schema and everything reachable from it in pre-order, the children of a schema are walked in the
+     * order of {@link #children(StrucSchema)}
+     */
+    public static void walk(StrucSchema root, Visitor visitor) {
+        walk(root, visitor, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * Walks the schema like {@link #walk(StrucSchema, Visitor)}, schemas that are in the given set are only revisited.
+     * Passing the same set to several walks enters every schema only once across all of them.
+     *
+     * @param entered identity set of the schemas that have been entered, entered schemas are added to it
+     */
+    public static void walk(StrucSchema root, Visitor visitor, Set<StrucSchema> entered) {
+        if (root == null)
+            return;
+        Deque<StrucSchema> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            StrucSchema schema = stack.pop();
+            if (!entered.add(schema)) {
+                visitor.revisit(schema);
+                continue;
+            }
+            visitor.enter(schema);
+            List<StrucSchema> children = children(schema);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                if (children.get(i) != null)
+                    stack.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the array elements in order, the properties sorted by name, the additional property schema
+     * and the variants in order, missing children are null
+     */
+    public static List<StrucSchema> children(StrucSchema schema) {
+        StrucValue value = schema.getStrucValue();
+        if (value == null)
+            return List.of();
+        List<StrucSchema> children = new ArrayList<>(value.getArrayElements());
+        new TreeMap<>(value.getProperties()).values().forEach(children::add);
+        children.add(value.getAdditionalPropertySchema());
+        children.addAll(value.getVariants());
+        return children;
+    }
+}
@@ -0,0 +1,28 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the strings of one structure, equal names, formats and refs share one String.
+ * Unlike String.intern the table is released together with the structure that uses it.
+ * Can be used by multiple threads at the same time.
+ */
+public class StrucStringTable {
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * @return the canonical instance of the string, null for null
+     */
+    public String canonical(String string) {
+        if (string == null)
+            return null;
+        String canonicalString = strings.putIfAbsent(string, string);
+        return canonicalString == null ? string : canonicalString;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
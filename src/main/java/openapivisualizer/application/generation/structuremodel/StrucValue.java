@@ -1,12 +1,17 @@
 package openapivisualizer.application.generation.structuremodel;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -14,12 +19,225 @@ public class StrucValue {
     private DataPropertyType type;
     private String format;
     private String ref; //if type is array this is the reference to the schema
-    private List<StrucSchema> arrayElements = new ArrayList<>();
-    private Map<String, StrucSchema> properties = new HashMap<>();
+    //leaf values share the empty collections, they are only allocated when the first child is added
+    @Setter(AccessLevel.NONE)
+    private List<StrucSchema> arrayElements = List.of();
+    @Setter(AccessLevel.NONE)
+    private Map<String, StrucSchema> properties = Map.of();
+    //names of the properties that have to be present in an object
+    @Setter(AccessLevel.NONE)
+    private Set<String> requiredProperties = Set.of();
 
     private StrucSchema additionalPropertySchema;
+    //additionalProperties: false, the object may only have the declared properties
+    private boolean closed = false;
+
+    //alternatives of a oneOf or anyOf schema, the properties of the value are the union of their properties
+    @Setter(AccessLevel.NONE)
+    private List<StrucSchema> variants = List.of();
+
+    //parts of a composition that has not been merged yet, see StrucSchemaComposer
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.NONE)
+    private CompositionType compositionType;
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.NONE)
+    private List<StrucSchema> compositionParts = List.of();
+
+    //References of the children are resolved against this scope on first access, afterwards it is null
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile StrucSchemaScope scope;
+
+    //frozen values have immutable children, see freeze
+    @Setter(AccessLevel.NONE)
+    private boolean frozen = false;
 
     public StrucValue(DataPropertyType dataPropertyType){
         type = dataPropertyType;
     }
+
+    public StrucValue(DataPropertyType dataPropertyType, StrucSchemaScope scope) {
+        type = dataPropertyType;
+        this.scope = scope;
+    }
+
+    //children are added without resolving, as the scope may not be complete while the values are created
+    public void addArrayElement(StrucSchema arrayElement) {
+        checkNotFrozen();
+        if (arrayElements.isEmpty())
+            arrayElements = new ArrayList<>(1);
+        arrayElements.add(arrayElement);
+    }
+
+    public void addProperty(String name, StrucSchema property) {
+        checkNotFrozen();
+        if (properties.isEmpty())
+            properties = new HashMap<>();
+        properties.put(name, property);
+    }
+
+    public void addVariant(StrucSchema variant) {
+        checkNotFrozen();
+        if (variants.isEmpty())
+            variants = new ArrayList<>(2);
+        variants.add(variant);
+    }
+
+    void setComposition(CompositionType compositionType, List<StrucSchema> compositionParts) {
+        checkNotFrozen();
+        this.compositionType = compositionType;
+        this.compositionParts = compositionParts;
+    }
+
+    public void addRequiredProperty(String name) {
+        checkNotFrozen();
+        if (requiredProperties.isEmpty())
+            requiredProperties = new HashSet<>();
+        requiredProperties.add(name);
+    }
+
+    public void setFormat(String format) {
+        checkNotFrozen();
+        this.format = format;
+    }
+
+    public void setRef(String ref) {
+        checkNotFrozen();
+        this.ref = ref;
+    }
+
+    public void setAdditionalPropertySchema(StrucSchema additionalPropertySchema) {
+        checkNotFrozen();
+        this.additionalPropertySchema = additionalPropertySchema;
+    }
+
+    public void setClosed(boolean closed) {
+        checkNotFrozen();
+        this.closed = closed;
+    }
+
+    /**
+     * Replaces the children with compact immutable collections and the strings with their canonical instances.
+     * Values without children keep the shared empty collections, properties are stored in a CompactPropertyMap.
+     * The read API stays the same, unresolved references are still resolved on first access.
+     * Frozen values can not be modified anymore.
+     */
+    public synchronized void freeze(StrucStringTable strings) {
+        if (frozen)
+            return;
+        format = strings.canonical(format);
+        ref = strings.canonical(ref);
+        arrayElements = compactList(arrayElements);
+        variants = compactList(variants);
+        properties = CompactPropertyMap.copyOf(properties, strings);
+        requiredProperties = Set.copyOf(requiredProperties.stream().map(strings::canonical).toList());
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen)
+            throw new IllegalStateException("StrucValue is frozen");
+    }
+
+    private static List<StrucSchema> compactList(List<StrucSchema> list) {
+        //List.copyOf does not allow null elements
+        if (list.stream().anyMatch(Objects::isNull))
+            return Collections.unmodifiableList(new ArrayList<>(list));
+        return List.copyOf(list);
+    }
+
+    /**
+     * The children of a value as they were at one moment, see getChildrenWithoutResolving
+     *
+     * @param resolved whether the references among the children have been resolved already
+     */
+    public record Children(boolean resolved, List<StrucSchema> arrayElements, Map<String, StrucSchema> properties,
+                           StrucSchema additionalPropertySchema, List<StrucSchema> variants) {
+    }
+
+    /**
+     * Copies the children without resolving their references, e.g. to persist the value.
+     * The copy is taken while no other thread resolves the references, so either all or none of them are resolved.
+     */
+    public synchronized Children getChildrenWithoutResolving() {
+        return new Children(scope == null, new ArrayList<>(arrayElements), new HashMap<>(properties),
+                additionalPropertySchema, new ArrayList<>(variants));
+    }
+
+    //the children as they are, without resolving them
+    List<StrucSchema> getUnresolvedArrayElements() {
+        return arrayElements;
+    }
+
+    Map<String, StrucSchema> getUnresolvedProperties() {
+        return properties;
+    }
+
+    StrucSchema getUnresolvedAdditionalPropertySchema() {
+        return additionalPropertySchema;
+    }
+
+    List<StrucSchema> getUnresolvedVariants() {
+        return variants;
+    }
+
+    public List<StrucSchema> getArrayElements() {
+        resolveRefs();
+        return arrayElements;
+    }
+
+    public Map<String, StrucSchema> getProperties() {
+        resolveRefs();
+        return properties;
+    }
+
+    public StrucSchema getAdditionalPropertySchema() {
+        resolveRefs();
+        return additionalPropertySchema;
+    }
+
+    public List<StrucSchema> getVariants() {
+        resolveRefs();
+        return variants;
+    }
+
+    /**
+     * Replaces the direct children that are references with the referenced component schemas.
+     * Only this value is resolved, the children are resolved when they are accessed themselves,
+     * so recursive schemas are resolved one level at a time.
+     */
+    private void resolveRefs() {
+        if (scope == null)
+            return;
+        synchronized (this) {
+            StrucSchemaScope currentScope = scope;
+            if (currentScope == null)
+                return;
+            if (!arrayElements.isEmpty()) {
+                List<StrucSchema> resolvedElements = new ArrayList<>(arrayElements.size());
+                arrayElements.forEach(element -> resolvedElements.add(resolve(element, currentScope)));
+                arrayElements = frozen ? compactList(resolvedElements) : resolvedElements;
+            }
+            if (!variants.isEmpty()) {
+                List<StrucSchema> resolvedVariants = new ArrayList<>(variants.size());
+                variants.forEach(variant -> resolvedVariants.add(resolve(variant, currentScope)));
+                variants = frozen ? compactList(resolvedVariants) : resolvedVariants;
+            }
+            if (properties instanceof CompactPropertyMap compactProperties)
+                compactProperties.replaceProperties(property -> resolve(property, currentScope));
+            else if (!properties.isEmpty())
+                properties.replaceAll((name, property) -> resolve(property, currentScope));
+            additionalPropertySchema = resolve(additionalPropertySchema, currentScope);
+            scope = null;
+        }
+    }
+
+    private static StrucSchema resolve(StrucSchema schema, StrucSchemaScope scope) {
+        if (schema == null || schema.getStrucValue() == null || schema.getStrucValue().getType() != DataPropertyType.SCHEMA)
+            return schema;
+        StrucSchema component = scope.resolve(schema.getStrucValue().getRef());
+        //unresolvable references stay references
+        return component == null ? schema : component;
+    }
 }
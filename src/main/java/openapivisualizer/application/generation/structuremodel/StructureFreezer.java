@@ -0,0 +1,86 @@
+package openapivisualizer.application.generation.structuremodel;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Converts finished structures into their compact immutable form, see StrucValue#freeze and StrucPath#freeze.
+ * The schemas are walked without resolving their references, so freezing does not resolve anything
+ * that has not been accessed yet. Not thread safe, a freezer is used by one thread for one structure
+ * or, with a shared string table, for one part of a structure.
+ */
+public final class StructureFreezer {
+
+    private final StrucStringTable strings;
+    private final Set<StrucValue> frozenValues = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<StrucSchema> frozenSchemas = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<StrucPath> frozenPaths = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int leafValues = 0;
+
+    public StructureFreezer() {
+        this(new StrucStringTable());
+    }
+
+    /**
+     * @param strings the string table of the structure, when its parts are frozen by separate freezers
+     */
+    public StructureFreezer(StrucStringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * @return the canonical instance of a string of the structure, see StrucStringTable
+     */
+    public String canonical(String string) {
+        return strings.canonical(string);
+    }
+
+    public void freeze(StrucPath strucPath) {
+        //operations with several tags are listed under each of them
+        if (!frozenPaths.add(strucPath))
+            return;
+        strucPath.freeze(strings);
+        freeze(strucPath.getRequestStrucSchema());
+        freeze(strucPath.getResponseStrucSchema());
+    }
+
+    /**
+     * Freezes the schema and everything reachable from it that has not been frozen by this freezer yet
+     */
+    public void freeze(StrucSchema root) {
+        if (root == null)
+            return;
+        Deque<StrucSchema> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            StrucSchema schema = stack.pop();
+            if (!frozenSchemas.add(schema))
+                continue;
+            schema.setName(strings.canonical(schema.getName()));
+            StrucValue value = schema.getStrucValue();
+            //the children of a value that is already frozen have been frozen together with it
+            if (value == null || value.isFrozen() || !frozenValues.add(value))
+                continue;
+            value.freeze(strings);
+            if (value.getUnresolvedArrayElements().isEmpty() && value.getUnresolvedProperties().isEmpty())
+                leafValues++;
+            value.getUnresolvedArrayElements().forEach(element -> push(stack, element));
+            value.getUnresolvedProperties().values().forEach(property -> push(stack, property));
+            push(stack, value.getUnresolvedAdditionalPropertySchema());
+            value.getUnresolvedVariants().forEach(variant -> push(stack, variant));
+        }
+    }
+
+    private static void push(Deque<StrucSchema> stack, StrucSchema schema) {
+        if (schema != null)
+            stack.push(schema);
+    }
+
+    public String getReport() {
+        return String.format("froze %d paths, %d schemas and %d values, %d values share the empty collections, %d distinct strings",
+                frozenPaths.size(), frozenSchemas.size(), frozenValues.size(), leafValues, strings.size());
+    }
+}
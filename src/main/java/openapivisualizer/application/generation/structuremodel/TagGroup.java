@@ -1,7 +1,8 @@
 package openapivisualizer.application.generation.structuremodel;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.MultiValueMap;
 
@@ -9,12 +10,15 @@ import java.util.List;
 import java.util.Map;
 
 @Getter
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class TagGroup {
-    private String tagName;
-    private List<String> apiPaths;
-    private Map<String, String> uriPaths;
-    private MultiValueMap<String, String> relationPaths;
-    private Map<String, StrucSchema> schemaMap;
-    private Map<String, Map<HttpMethod, StrucPath>> pathMap;
+    private final String tagName;
+    private final List<String> apiPaths;
+    private final Map<String, String> uriPaths;
+    private final MultiValueMap<String, String> relationPaths;
+    private final Map<String, StrucSchema> schemaMap;
+    private final Map<String, Map<HttpMethod, StrucPath>> pathMap;
+    //structural fingerprint of the paths, computed when the tag is analysed so it is not computed on the UI thread
+    @Setter
+    private volatile String fingerprint;
 }
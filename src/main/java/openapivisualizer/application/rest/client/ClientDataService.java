@@ -10,6 +10,7 @@ import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.parser.OpenAPIV3Parser;
 import io.swagger.v3.parser.core.models.AuthorizationValue;
 import io.swagger.v3.parser.core.models.ParseOptions;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -18,12 +19,29 @@ import openapivisualizer.application.rest.client.restdatamodel.DataValue;
 import openapivisualizer.application.generation.structuremodel.DataPropertyType;
 import openapivisualizer.application.generation.structuremodel.StrucPath;
 import openapivisualizer.application.ui.service.NotificationService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
@@ -31,27 +49,53 @@ import java.util.*;
 public class ClientDataService {
     private final ClientRequestService clientRequestService;
     private final NotificationService notificationService;
+    private final RequestExecutorService requestExecutorService;
+    private final ResponseCacheService responseCacheService;
+    private final RequestCoalescerService requestCoalescerService;
+    private final TransferStatisticsService transferStatisticsService;
+    private final ResponseValidatorService responseValidatorService;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    //read by the request threads of the async operations
     @Setter
     @Getter
-    private String serverUrl = "";
+    private volatile String serverUrl = "";
 
     @Setter
-    private String username = null;
+    private volatile String username = null;
     @Setter
-    private String password = null;
+    private volatile String password = null;
 
-    public ClientDataService(ClientRequestService clientRequestService, NotificationService notificationService) {
+    //validators of the last fetched version of polled OpenAPI documents, also taken when a document is downloaded for its extraction
+    private final Map<String, DocumentVersion> polledDocuments = new ConcurrentHashMap<>();
+
+    @AllArgsConstructor
+    private static class DocumentVersion {
+        private final String eTag;
+        private final String lastModified;
+        private final String contentHash;
+    }
+
+    public ClientDataService(ClientRequestService clientRequestService, NotificationService notificationService,
+                             RequestExecutorService requestExecutorService, ResponseCacheService responseCacheService,
+                             RequestCoalescerService requestCoalescerService, TransferStatisticsService transferStatisticsService,
+                             ResponseValidatorService responseValidatorService) {
         this.clientRequestService = clientRequestService;
         this.notificationService = notificationService;
+        this.requestExecutorService = requestExecutorService;
+        this.responseCacheService = responseCacheService;
+        this.requestCoalescerService = requestCoalescerService;
+        this.transferStatisticsService = transferStatisticsService;
+        this.responseValidatorService = responseValidatorService;
     }
 
     public OpenAPI getOpenApi(String path) {
         if (username != null && password != null && path.startsWith("http")) {
-            ResponseEntity<String> response = sendRequest(HttpMethod.GET, path, "", null, null, null);
-
-            OpenAPI openAPI = new OpenAPIV3Parser().readContents(response.getBody()).getOpenAPI();
-            return openAPI;
+            try {
+                OpenAPI openAPI = new OpenAPIV3Parser().readContents(new String(fetchDocument(path), StandardCharsets.UTF_8)).getOpenAPI();
+                return openAPI;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         } else {
             OpenAPI openAPI = new OpenAPIV3Parser().read(path);
             return openAPI;
@@ -59,8 +103,191 @@ public class ClientDataService {
 
     }
 
+    /**
+     * Reads the raw OpenAPI document, without parsing it
+     *
+     * @param path the url or file path of the OpenAPI document
+     */
+    public byte[] getOpenApiContent(String path) throws IOException {
+        if (path.startsWith("http"))
+            return fetchDocument(path);
+        return Files.readAllBytes(Path.of(path));
+    }
+
+    /**
+     * Determines a token that changes whenever the OpenAPI document changes, without downloading or parsing it
+     *
+     * @param path the url or file path of the OpenAPI document
+     * @return the ETag or Last-Modified header for urls, the modification time and size for files,
+     * or null if the version cannot be determined
+     */
+    public String getOpenApiVersion(String path) {
+        if (path.startsWith("http")) {
+            final var requestWrapper = new ClientRequestWrapper(HttpMethod.HEAD, path);
+            requestWrapper.requestBuilder().path("");
+            if (username != null && password != null)
+                requestWrapper.requestBuilder().basicAuth(username, password);
+            try {
+                HttpHeaders headers = clientRequestService.head(requestWrapper);
+                if (headers.getETag() != null)
+                    return "etag:" + headers.getETag();
+                if (headers.getLastModified() != -1)
+                    return "modified:" + headers.getLastModified();
+            } catch (RestClientException e) {
+                log.debug("Could not determine version of {}: {}", path, e.getMessage());
+            }
+            return null;
+        }
+        try {
+            Path file = Path.of(path);
+            if (Files.isRegularFile(file)) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return "mtime:" + attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+            }
+        } catch (IOException | InvalidPathException e) {
+            log.debug("Could not determine version of {}: {}", path, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the version of the OpenAPI document is known, which later calls of fetchChangedOpenApi compare against
+     */
+    public boolean hasOpenApiBaseline(String url) {
+        return polledDocuments.containsKey(url);
+    }
+
+    /**
+     * Fetches the OpenAPI document with If-None-Match and If-Modified-Since, so it is only downloaded if it changed.
+     * If no version of the document is known yet, the call only remembers the current version.
+     *
+     * @param url the url of the OpenAPI document
+     * @return the content of the document if it changed since the version that is known
+     */
+    public Optional<byte[]> fetchChangedOpenApi(String url) {
+        DocumentVersion previousVersion = polledDocuments.get(url);
+        final var requestWrapper = new ClientRequestWrapper(HttpMethod.GET, url);
+        requestWrapper.requestBuilder().path("");
+        if (username != null && password != null)
+            requestWrapper.requestBuilder().basicAuth(username, password);
+        if (previousVersion != null && previousVersion.eTag != null)
+            requestWrapper.requestBuilder().header(HttpHeaders.IF_NONE_MATCH, previousVersion.eTag);
+        if (previousVersion != null && previousVersion.lastModified != null)
+            requestWrapper.requestBuilder().header(HttpHeaders.IF_MODIFIED_SINCE, previousVersion.lastModified);
+
+        ResponseEntity<byte[]> response;
+        try {
+            response = clientRequestService.conditionalRequest(requestWrapper);
+        } catch (RestClientException e) {
+            log.debug("Could not fetch {}: {}", url, e.getMessage());
+            return Optional.empty();
+        }
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED)
+            return Optional.empty();
+
+        //servers without validators send the whole document every time, so the content is compared as well
+        DocumentVersion currentVersion = rememberVersion(url, response.getHeaders(), response.getBody());
+        if (previousVersion == null || previousVersion.contentHash.equals(currentVersion.contentHash))
+            return Optional.empty();
+        return Optional.of(response.getBody() == null ? new byte[0] : response.getBody());
+    }
+
+    private DocumentVersion rememberVersion(String url, HttpHeaders headers, byte[] content) {
+        DocumentVersion version = new DocumentVersion(headers.getFirst(HttpHeaders.ETAG),
+                headers.getFirst(HttpHeaders.LAST_MODIFIED), contentHash(content));
+        polledDocuments.put(url, version);
+        return version;
+    }
+
+    private static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content == null ? new byte[0] : content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private ResponseEntity<String> sendRequest(HttpMethod httpMethod, String url, String path, Map<String, String> pathParams,
                                                MultiValueMap<String, String> queryParams, String body) {
+        final var response = clientRequestService.request(createRequest(httpMethod, url, path, pathParams, queryParams, body));
+        log.debug(response.getBody());
+        return response;
+    }
+
+    /**
+     * Downloads a document, compressed if the server supports it.
+     * Its version is remembered, so that polling for changes does not need to download it again first.
+     */
+    private byte[] fetchDocument(String url) throws IOException {
+        final var requestWrapper = createRequest(HttpMethod.GET, url, "", null, null, null);
+        requestWrapper.requestBuilder().header(HttpHeaders.ACCEPT_ENCODING, ContentDecoding.ACCEPTED_ENCODINGS);
+        ResponseEntity<byte[]> response = clientRequestService.encodedRequest(requestWrapper);
+        if (response.getBody() == null)
+            throw new IOException("Empty response for " + url);
+        try (ContentDecoding.CountingInputStream body = ContentDecoding.decode(response.getHeaders(), new ByteArrayInputStream(response.getBody()))) {
+            byte[] content = body.readAllBytes();
+            transferStatisticsService.record(url, response.getBody().length, content.length);
+            rememberVersion(url, response.getHeaders(), content);
+            return content;
+        }
+    }
+
+    /**
+     * Sends a GET request for data, which is answered from the response cache while the cached response is fresh
+     * and revalidated with If-None-Match and If-Modified-Since once it is stale
+     */
+    private FetchedResponse sendCachedGetRequest(ResponseCacheService.CacheKey key, String url, String path,
+                                                 Map<String, String> pathParams, MultiValueMap<String, String> queryParams) {
+        Optional<ResponseCacheService.CachedResponse> cachedResponse = responseCacheService.get(key);
+        if (cachedResponse.isPresent() && cachedResponse.get().isFresh()) {
+            log.debug("Answering GET {} from the response cache", url + path);
+            return new FetchedResponse(cachedResponse.get().toResponseEntity(), false);
+        }
+
+        final var requestWrapper = createRequest(HttpMethod.GET, url, path, pathParams, queryParams, null);
+        requestWrapper.requestBuilder().header(HttpHeaders.ACCEPT_ENCODING, ContentDecoding.ACCEPTED_ENCODINGS);
+        cachedResponse.ifPresent(staleResponse -> {
+            if (staleResponse.getETag() != null)
+                requestWrapper.requestBuilder().header(HttpHeaders.IF_NONE_MATCH, staleResponse.getETag());
+            if (staleResponse.getLastModified() != null)
+                requestWrapper.requestBuilder().header(HttpHeaders.IF_MODIFIED_SINCE, staleResponse.getLastModified());
+        });
+        ResponseEntity<byte[]> response = clientRequestService.sharedEncodedRequest(requestWrapper);
+        if (cachedResponse.isPresent() && response.getStatusCode() == HttpStatus.NOT_MODIFIED)
+            return new FetchedResponse(responseCacheService.revalidated(key, cachedResponse.get(), response.getHeaders()), false);
+        responseCacheService.put(key, response);
+        return new FetchedResponse(response, true);
+    }
+
+    /**
+     * @param transferred true if the body came over the network, false if it was taken from the response cache
+     */
+    private record FetchedResponse(ResponseEntity<byte[]> response, boolean transferred) {
+    }
+
+    /**
+     * Requests that change data make the cached responses of the server outdated
+     */
+    private void invalidateCachedResponses(String url) {
+        responseCacheService.invalidate(url);
+    }
+
+    /**
+     * Cached responses and structures are only shared between sessions with the same credentials,
+     * this identifies the credentials without keeping them
+     *
+     * @return a hash of the credentials or an empty string if there are none
+     */
+    public String credentialIdentity() {
+        String username = this.username;
+        String password = this.password;
+        if (username == null || password == null)
+            return "";
+        return contentHash((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ClientRequestWrapper createRequest(HttpMethod httpMethod, String url, String path, Map<String, String> pathParams,
+                                               MultiValueMap<String, String> queryParams, String body) {
         final var requestWrapper = new ClientRequestWrapper(httpMethod, url);
 
         requestWrapper.requestBuilder()
@@ -76,10 +303,7 @@ public class ClientDataService {
             requestWrapper.requestBuilder()
                     .body(body);
         }
-
-        final var response = clientRequestService.request(requestWrapper);
-        log.debug(response.getBody());
-        return response;
+        return requestWrapper;
     }
 
     public void postData(StrucPath strucPath, DataSchema bodyData, MultiValueMap<String, String> queryParams, Map<String, String> pathVariables) {
@@ -87,6 +311,7 @@ public class ClientDataService {
         if (bodyData.getValue().getProperties().size() != 0)
             body = convertToJson(bodyData).toString();
         ResponseEntity<String> response = sendRequest(HttpMethod.POST, serverUrl, strucPath.getPath(), pathVariables, queryParams, body);
+        invalidateCachedResponses(serverUrl);
         log.info(response.getStatusCode().toString());
 
         if (response.getStatusCode().is2xxSuccessful())
@@ -98,6 +323,7 @@ public class ClientDataService {
         if (bodyData.getValue().getProperties().size() != 0)
             body = convertToJson(bodyData).toString();
         ResponseEntity<String> response = sendRequest(HttpMethod.PUT, serverUrl, strucPath.getPath(), pathVariables, queryParams, body);
+        invalidateCachedResponses(serverUrl);
         log.info(response.getStatusCode().toString());
 
         if (response.getStatusCode().is2xxSuccessful())
@@ -108,6 +334,7 @@ public class ClientDataService {
         log.info("Sending DELETE request to: {}", serverUrl + path);
 
         ResponseEntity<String> response = sendRequest(HttpMethod.DELETE, serverUrl, path, pathVariables, queryParams, null);
+        invalidateCachedResponses(serverUrl);
 
         if (response.getStatusCode().is2xxSuccessful())
             notificationService.postNotification("DELETE successful", false);
@@ -115,31 +342,69 @@ public class ClientDataService {
     }
 
     public DataSchema getData(StrucPath strucPath, String wrappedPath, Map<String, String> pathParams, MultiValueMap<String, String> queryParameters) throws RequestException {
+        String url = serverUrl;
+        ResponseCacheService.CacheKey key = ResponseCacheService.key(url, strucPath.getPath(), pathParams, queryParameters, credentialIdentity());
+        //concurrent identical requests of all sessions share one response and its conversion
+        ConvertedResponse convertedResponse = requestCoalescerService.execute(key,
+                () -> fetchData(key, url, strucPath, pathParams, queryParameters));
+        //the shared request does not notify anyone, so every session that waited for it reports the error itself
+        if (convertedResponse.errorStatus != null) {
+            notificationService.postNotification(convertedResponse.errorStatus.toString(), true);
+            throw new RequestException(convertedResponse.errorStatus.toString());
+        }
+        reportMismatches(strucPath, convertedResponse.mismatches);
+
+        DataSchema dataSchema = convertedResponse.dataSchema;
+        if (wrappedPath != null) {
+            //String key = dataSchema.getValue().get("_embedded").getValue().getProperties().keySet().iterator().next();
+            //dataSchema = dataSchema.getValue().get("_embedded").getValue().get(key);
+            DataSchema tempSchema = dataSchema;
+            for (String attributeName : wrappedPath.split("/")) {
+                if (tempSchema.getValue().getProperties().containsKey(attributeName)) {
+                    tempSchema = tempSchema.getValue().getProperties().get(attributeName);
+                } else {
+                    tempSchema = dataSchema;
+                    break;
+                }
+            }
+            dataSchema = tempSchema;
+        }
+        return dataSchema;
+    }
 
-        ResponseEntity<String> response = sendRequest(HttpMethod.GET, serverUrl, strucPath.getPath(), pathParams, queryParameters, null);
+    /**
+     * The converted data of a response, shared by the sessions that requested it at the same time
+     */
+    @AllArgsConstructor
+    private static class ConvertedResponse {
+        private final DataSchema dataSchema;
+        private final ResponseValidator.Mismatches mismatches;
+        //the status of an error response, which has no data
+        private final HttpStatus errorStatus;
+    }
+
+    private ConvertedResponse fetchData(ResponseCacheService.CacheKey key, String url, StrucPath strucPath, Map<String, String> pathParams,
+                                        MultiValueMap<String, String> queryParameters) throws RequestException {
+        FetchedResponse fetchedResponse = sendCachedGetRequest(key, url, strucPath.getPath(), pathParams, queryParameters);
+        ResponseEntity<byte[]> response = fetchedResponse.response();
 
         if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-            try {
-                JsonNode node = objectMapper.readTree(response.getBody());
-                DataSchema dataSchema = convertToDataSchema("root", node);
-                if (wrappedPath != null) {
-                    //String key = dataSchema.getValue().get("_embedded").getValue().getProperties().keySet().iterator().next();
-                    //dataSchema = dataSchema.getValue().get("_embedded").getValue().get(key);
-                    DataSchema tempSchema = dataSchema;
-                    for (String attributeName : wrappedPath.split("/")) {
-                        if (tempSchema.getValue().getProperties().containsKey(attributeName)) {
-                            tempSchema = tempSchema.getValue().getProperties().get(attributeName);
-                        } else {
-                            tempSchema = dataSchema;
-                            break;
-                        }
-                    }
-                    dataSchema = tempSchema;
-                }
-                return dataSchema;
+            //the body is buffered as it was transferred, compressed if the server compressed it, and decoded while
+            //the JSON is read, so the decoded body is never built as a String
+            try (ContentDecoding.CountingInputStream body = ContentDecoding.decode(response.getHeaders(), new ByteArrayInputStream(response.getBody()))) {
+                JsonNode node = objectMapper.readTree(body);
+                if (fetchedResponse.transferred())
+                    transferStatisticsService.record(url + strucPath.getPath(), response.getBody().length, body.getCount());
+                ResponseValidator.Mismatches mismatches = new ResponseValidator.Mismatches();
+                DataSchema dataSchema = convertToDataSchema("root", node, getResponseValidator(strucPath), "$", mismatches);
+                return new ConvertedResponse(dataSchema, mismatches, null);
             } catch (JsonProcessingException e) {
                 throw new RequestException("Server response not equaling OpenAPI Specification");
+            } catch (IOException e) {
+                throw new RequestException("Server response could not be decoded: " + e.getMessage());
             }
+        } else if (response.getStatusCode().isError()) {
+            return new ConvertedResponse(null, null, response.getStatusCode());
         } else if (response.getBody() == null) {
             throw new RequestException("Server response empty");
         } else {
@@ -147,6 +412,62 @@ public class ClientDataService {
         }
     }
 
+    /**
+     * Like getData, but the request is sent from a request thread, so the calling UI thread is not blocked.
+     * The future completes on the request thread, results have to be shown with UI#access.
+     * A RequestException completes the future exceptionally, wrapped in a CompletionException.
+     */
+    public CompletableFuture<DataSchema> getDataAsync(StrucPath strucPath, String wrappedPath, Map<String, String> pathParams,
+                                                      MultiValueMap<String, String> queryParameters) {
+        Map<String, String> requestPathParams = copy(pathParams);
+        MultiValueMap<String, String> requestQueryParameters = copy(queryParameters);
+        return requestExecutorService.supply(() -> {
+            try {
+                return getData(strucPath, wrappedPath, requestPathParams, requestQueryParameters);
+            } catch (RequestException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> postDataAsync(StrucPath strucPath, DataSchema bodyData, MultiValueMap<String, String> queryParams,
+                                                 Map<String, String> pathVariables) {
+        Map<String, String> requestPathVariables = copy(pathVariables);
+        MultiValueMap<String, String> requestQueryParams = copy(queryParams);
+        return requestExecutorService.supply(() -> {
+            postData(strucPath, bodyData, requestQueryParams, requestPathVariables);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> putDataAsync(StrucPath strucPath, DataSchema bodyData, MultiValueMap<String, String> queryParams,
+                                                Map<String, String> pathVariables) {
+        Map<String, String> requestPathVariables = copy(pathVariables);
+        MultiValueMap<String, String> requestQueryParams = copy(queryParams);
+        return requestExecutorService.supply(() -> {
+            putData(strucPath, bodyData, requestQueryParams, requestPathVariables);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteDataAsync(String path, Map<String, String> pathVariables, MultiValueMap<String, String> queryParams) {
+        Map<String, String> requestPathVariables = copy(pathVariables);
+        MultiValueMap<String, String> requestQueryParams = copy(queryParams);
+        return requestExecutorService.supply(() -> {
+            deleteData(path, requestPathVariables, requestQueryParams);
+            return null;
+        });
+    }
+
+    //the parameters of the views can change while an async request is running
+    private static Map<String, String> copy(Map<String, String> parameters) {
+        return parameters == null ? null : new HashMap<>(parameters);
+    }
+
+    private static MultiValueMap<String, String> copy(MultiValueMap<String, String> parameters) {
+        return parameters == null ? null : new LinkedMultiValueMap<>(parameters);
+    }
+
     private ObjectNode convertToJson(DataSchema dataSchema) {
         ObjectNode node = objectMapper.createObjectNode();
         dataSchema.getValue().getProperties().forEach((key, value) -> {
@@ -164,20 +485,55 @@ public class ClientDataService {
         return node;
     }
 
-    private DataSchema convertToDataSchema(String name, JsonNode node) {
+    private ResponseValidator.Node getResponseValidator(StrucPath strucPath) {
+        return responseValidatorService.getValidator(strucPath.getResponseStrucSchema());
+    }
+
+    private void reportMismatches(StrucPath strucPath, ResponseValidator.Mismatches mismatches) {
+        if (mismatches.isEmpty())
+            return;
+        log.warn("Response of {} does not match the OpenAPI Specification in {} places: {}", strucPath.getPath(),
+                mismatches.getCount(), mismatches.getMessages());
+        notificationService.postNotification("Response not equaling OpenAPI Specification at "
+                + mismatches.getMessages().get(0)
+                + (mismatches.getCount() > 1 ? " (and " + (mismatches.getCount() - 1) + " more)" : ""), true);
+    }
+
+    /**
+     * Converts the response data and checks it against the validator of its schema in the same pass
+     *
+     * @param validator the compiled schema of the node, null if no schema fits the node
+     * @param path      the JSON path of the node, used in the mismatches
+     */
+    private DataSchema convertToDataSchema(String name, JsonNode node, ResponseValidator.Node validator, String path,
+                                           ResponseValidator.Mismatches mismatches) {
         DataValue dataValue;
 
+        if (validator != null)
+            validator.check(node, path, mismatches);
         switch (node.getNodeType()) {
             case OBJECT -> { // object
                 Map<String, DataSchema> dataSchemas = new HashMap<>();
                 ObjectNode objectNode = (ObjectNode) node;
-                objectNode.fieldNames().forEachRemaining(fieldName -> dataSchemas.put(fieldName, convertToDataSchema(fieldName, objectNode.get(fieldName))));
+                objectNode.fieldNames().forEachRemaining(fieldName -> dataSchemas.put(fieldName, convertToDataSchema(fieldName,
+                        objectNode.get(fieldName), validator == null ? null : validator.property(fieldName),
+                        path + "." + fieldName, mismatches)));
                 dataValue = new DataValue(dataSchemas, DataPropertyType.OBJECT);
             }
             case ARRAY -> {
                 List<DataSchema> dataSchemas = new ArrayList<>();
                 ArrayNode arrayNode = (ArrayNode) node;
-                arrayNode.forEach(elementNode -> dataSchemas.add(convertToDataSchema("-", elementNode)));
+                for (int i = 0; i < arrayNode.size(); i++) {
+                    JsonNode elementNode = arrayNode.get(i);
+                    String elementPath = path + "[" + i + "]";
+                    ResponseValidator.Node elementValidator = null;
+                    if (validator != null) {
+                        elementValidator = validator.element(elementNode);
+                        if (elementValidator == null)
+                            mismatches.add(elementPath, "no array element schema fits " + elementNode.getNodeType());
+                    }
+                    dataSchemas.add(convertToDataSchema("-", elementNode, elementValidator, elementPath, mismatches));
+                }
                 dataValue = new DataValue(dataSchemas, DataPropertyType.ARRAY);
             }
             case BOOLEAN -> dataValue = new DataValue(String.valueOf(node.asBoolean()), DataPropertyType.BOOLEAN);
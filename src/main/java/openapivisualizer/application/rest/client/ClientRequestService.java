@@ -4,7 +4,9 @@ import openapivisualizer.application.ui.service.NotificationService;
 import com.vaadin.flow.spring.annotation.UIScope;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.DefaultResponseErrorHandler;
@@ -18,11 +20,31 @@ import java.io.IOException;
 public class ClientRequestService extends DefaultResponseErrorHandler {
 
     private final NotificationService notificationService;
+    private final HttpClientPoolService httpClientPoolService;
     private final RestTemplate restTemplate;
+    //errors of probing requests are thrown instead of being shown to the user
+    private final RestTemplate probeTemplate;
+    //error responses of requests that are shared between sessions are returned, each session reports them itself
+    private final RestTemplate sharedTemplate;
 
-    public ClientRequestService(NotificationService notificationService, RestTemplateBuilder restTemplateBuilder) {
+    public ClientRequestService(NotificationService notificationService, RestTemplateBuilder restTemplateBuilder,
+                                HttpClientPoolService httpClientPoolService, Http2TransportService http2TransportService) {
         this.notificationService = notificationService;
-        this.restTemplate = restTemplateBuilder.errorHandler(this).build();
+        this.httpClientPoolService = httpClientPoolService;
+        //the templates of all sessions send their requests through the shared connection pool,
+        //or multiplexed over HTTP/2 for the servers that are configured for it
+        ClientHttpRequestFactory requestFactory = (uri, httpMethod) -> http2TransportService.supports(uri)
+                ? http2TransportService.getRequestFactory().createRequest(uri, httpMethod)
+                : httpClientPoolService.getRequestFactory().createRequest(uri, httpMethod);
+        RestTemplateBuilder pooledBuilder = restTemplateBuilder.requestFactory(() -> requestFactory);
+        this.restTemplate = pooledBuilder.errorHandler(this).build();
+        this.probeTemplate = pooledBuilder.build();
+        this.sharedTemplate = pooledBuilder.errorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        }).build();
     }
 
     @Override
@@ -33,6 +55,58 @@ public class ClientRequestService extends DefaultResponseErrorHandler {
     protected ResponseEntity<String> request(ClientRequestWrapper requestWrapper) {
         final var requestEntity = requestWrapper.getRequestEntity();
         log.info("Sending {} request to: {} ",requestEntity.getMethod(), requestEntity.getUrl());
-        return restTemplate.exchange(requestEntity, String.class);
+        try {
+            return restTemplate.exchange(requestEntity, String.class);
+        } finally {
+            //collecting the statistics locks the pool, so they are only collected if they are logged
+            if (log.isDebugEnabled())
+                log.debug("Connection pool: {}", httpClientPoolService.getStatistics());
+        }
+    }
+
+    /**
+     * Sends a request whose response body is returned as it was transferred, it has to be decoded by its Content-Encoding
+     */
+    protected ResponseEntity<byte[]> encodedRequest(ClientRequestWrapper requestWrapper) {
+        final var requestEntity = requestWrapper.getRequestEntity();
+        log.info("Sending {} request to: {} ", requestEntity.getMethod(), requestEntity.getUrl());
+        try {
+            return restTemplate.exchange(requestEntity, byte[].class);
+        } finally {
+            //collecting the statistics locks the pool, so they are only collected if they are logged
+            if (log.isDebugEnabled())
+                log.debug("Connection pool: {}", httpClientPoolService.getStatistics());
+        }
+    }
+
+    /**
+     * Like encodedRequest, but error responses are returned without notifying this session,
+     * the response may be shared with other sessions that report the error to their users themselves
+     */
+    protected ResponseEntity<byte[]> sharedEncodedRequest(ClientRequestWrapper requestWrapper) {
+        final var requestEntity = requestWrapper.getRequestEntity();
+        log.info("Sending shared {} request to: {} ", requestEntity.getMethod(), requestEntity.getUrl());
+        try {
+            return sharedTemplate.exchange(requestEntity, byte[].class);
+        } finally {
+            //collecting the statistics locks the pool, so they are only collected if they are logged
+            if (log.isDebugEnabled())
+                log.debug("Connection pool: {}", httpClientPoolService.getStatistics());
+        }
+    }
+
+    protected HttpHeaders head(ClientRequestWrapper requestWrapper) {
+        final var requestEntity = requestWrapper.getRequestEntity();
+        log.debug("Sending {} request to: {} ", requestEntity.getMethod(), requestEntity.getUrl());
+        return probeTemplate.exchange(requestEntity, Void.class).getHeaders();
+    }
+
+    /**
+     * Sends a request whose response may be 304 Not Modified, which is returned like any other response
+     */
+    protected ResponseEntity<byte[]> conditionalRequest(ClientRequestWrapper requestWrapper) {
+        final var requestEntity = requestWrapper.getRequestEntity();
+        log.debug("Sending conditional {} request to: {} ", requestEntity.getMethod(), requestEntity.getUrl());
+        return probeTemplate.exchange(requestEntity, byte[].class);
     }
 }
@@ -0,0 +1,98 @@
+package openapivisualizer.application.rest.client;
+
+import org.springframework.http.HttpHeaders;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes compressed response bodies while they are read. The transferred body is buffered, compressed as it was sent,
+ * the decoded body is produced as a stream for its reader instead of being inflated into a buffer first.
+ */
+final class ContentDecoding {
+
+    //brotli and zstd would need a native decoder, the backends are only asked for what the JDK can decode
+    static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Wraps the body in the decoders of its Content-Encoding, which lists the encodings in the order they were applied
+     */
+    static CountingInputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        InputStream decoded = body;
+        String contentEncoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            String[] encodings = contentEncoding.toLowerCase(Locale.ROOT).split(",");
+            for (int i = encodings.length - 1; i >= 0; i--)
+                decoded = decode(encodings[i].trim(), decoded);
+        }
+        return new CountingInputStream(decoded);
+    }
+
+    private static InputStream decode(String encoding, InputStream body) throws IOException {
+        return switch (encoding) {
+            case "", "identity" -> body;
+            case "gzip", "x-gzip" -> new GZIPInputStream(body, 8192);
+            case "deflate" -> inflate(body);
+            default -> throw new IOException("Unsupported content encoding " + encoding);
+        };
+    }
+
+    /**
+     * Deflate is meant to be zlib wrapped, but some servers send raw deflate data, which has no zlib header
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(body, 2);
+        byte[] header = pushback.readNBytes(2);
+        pushback.unread(header);
+        boolean zlibWrapped = header.length == 2 && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        return new InflaterInputStream(pushback, new Inflater(!zlibWrapped), 8192);
+    }
+
+    /**
+     * Counts the decoded bytes that are read
+     */
+    static class CountingInputStream extends FilterInputStream {
+        private long count = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1)
+                count++;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
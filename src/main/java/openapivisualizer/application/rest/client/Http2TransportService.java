@@ -0,0 +1,170 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * HTTP/2 transport for the servers that are configured for it. All sessions share one java.net.http.HttpClient,
+ * which multiplexes the concurrent requests to a backend over a single connection. Servers that do not negotiate
+ * HTTP/2 are answered over HTTP/1.1 by the same client. Like the connection pool no cookies or credentials are kept.
+ */
+@Slf4j
+@Service
+public class Http2TransportService {
+
+    //set by the HttpClient itself, it refuses requests that set them
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final List<String> http2Servers;
+    private final Duration readTimeout;
+    private final HttpClient httpClient;
+    private final ClientHttpRequestFactory requestFactory = Http2Request::new;
+
+    public Http2TransportService(@Value("${openapivisualizer.http.http2-servers:}") String[] http2Servers,
+                                 @Value("${openapivisualizer.http.connect-timeout-ms:5000}") int connectTimeoutMillis,
+                                 @Value("${openapivisualizer.http.read-timeout-ms:30000}") int readTimeoutMillis) {
+        this.http2Servers = Arrays.stream(http2Servers).map(String::trim).filter(server -> !server.isEmpty()).toList();
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        if (!this.http2Servers.isEmpty())
+            log.info("Requests to {} are sent over HTTP/2", this.http2Servers);
+    }
+
+    /**
+     * @return true if the uri belongs to a server that is configured for HTTP/2, "*" selects all servers
+     */
+    public boolean supports(URI uri) {
+        if (http2Servers.isEmpty())
+            return false;
+        String url = uri.toString();
+        return http2Servers.stream().anyMatch(server -> server.equals("*") || url.startsWith(server));
+    }
+
+    public ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    /**
+     * The body is buffered and sent when the request is executed, RestTemplate writes the whole body anyway
+     */
+    private class Http2Request extends AbstractClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+        private Http2Request(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return method.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            byte[] bytes = body.toByteArray();
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .timeout(readTimeout)
+                    .method(method.name(), bytes.length == 0
+                            ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(bytes));
+            headers.forEach((name, values) -> {
+                if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+                    values.forEach(value -> request.header(name, value));
+            });
+            try {
+                HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+                log.debug("{} {} answered over {}", method, uri, response.version());
+                return new Http2Response(response);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Request to " + uri + " was interrupted");
+            }
+        }
+    }
+
+    private static class Http2Response extends AbstractClientHttpResponse {
+        private final HttpResponse<InputStream> response;
+        private HttpHeaders headers;
+
+        private Http2Response(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            //HTTP/2 has no reason phrases
+            return "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                response.headers().map().forEach(headers::addAll);
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.body().close();
+            } catch (IOException e) {
+                log.debug("Closing the response body failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool shared by the rest clients of all sessions, connections to the same backend are kept alive and reused.
+ * The pool holds no per-session state: cookies are not stored and credentials are sent with each request.
+ */
+@Slf4j
+@Service
+public class HttpClientPoolService {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+    public HttpClientPoolService(@Value("${openapivisualizer.http.max-connections:50}") int maxConnections,
+                                 @Value("${openapivisualizer.http.max-connections-per-host:10}") int maxConnectionsPerHost,
+                                 @Value("${openapivisualizer.http.connect-timeout-ms:5000}") int connectTimeoutMillis,
+                                 @Value("${openapivisualizer.http.read-timeout-ms:30000}") int readTimeoutMillis,
+                                 @Value("${openapivisualizer.http.keep-alive-seconds:60}") long keepAliveSeconds,
+                                 @Value("${openapivisualizer.http.idle-timeout-seconds:30}") long idleTimeoutSeconds) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        //connections that were idle for a while are checked before they are reused, the backend may have closed them
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .build();
+        //the keep-alive of the response is used if the backend sends one, but never longer than configured
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            long maxKeepAlive = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+            return keepAlive > 0 ? Math.min(keepAlive, maxKeepAlive) : maxKeepAlive;
+        };
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS)
+                //compressed responses are decoded by the client services, which also count the saved bytes
+                .disableContentCompression()
+                .disableCookieManagement()
+                .disableAuthCaching()
+                .build();
+        requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        log.info("HTTP connection pool allows {} connections, {} per host", maxConnections, maxConnectionsPerHost);
+    }
+
+    public ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    /**
+     * @return the usage of the pool in total and per backend
+     */
+    public String getStatistics() {
+        StringBuilder statistics = new StringBuilder("total ").append(format(connectionManager.getTotalStats()));
+        connectionManager.getRoutes().forEach(route -> statistics.append(", ").append(route.getTargetHost().toHostString())
+                .append(' ').append(format(connectionManager.getStats(route))));
+        return statistics.toString();
+    }
+
+    private static String format(PoolStats stats) {
+        return String.format("[leased %d, idle %d, pending %d, max %d]", stats.getLeased(), stats.getAvailable(),
+                stats.getPending(), stats.getMax());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        log.info("Closing HTTP connection pool: {}", getStatistics());
+        httpClient.close();
+    }
+}
@@ -0,0 +1,96 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent identical requests of all sessions share one in-flight request: the first caller sends it,
+ * callers with the same key that arrive before it completes wait for its result instead of sending their own.
+ * A failure of the request is passed to all waiting callers. The shared results must therefore only be read.
+ */
+@Slf4j
+@Service
+public class RequestCoalescerService {
+
+    @FunctionalInterface
+    public interface Request<T> {
+        T send() throws RequestException;
+    }
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long waitTimeoutMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public RequestCoalescerService(@Value("${openapivisualizer.http.coalescing-timeout-ms:35000}") long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Sends the request, or waits for the identical request that is already in flight
+     *
+     * @param key identifies identical requests, including the credentials they are sent with
+     */
+    public <T> T execute(Object key, Request<T> request) throws RequestException {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+        requests.incrementAndGet();
+        try {
+            T result = request.send();
+            flight.complete(result);
+            return result;
+        } catch (RequestException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            //later requests are sent again, they may get a newer response
+            inFlight.remove(key, flight);
+            if (log.isDebugEnabled())
+                log.debug("Request coalescing statistics: {}", getStatistics());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(CompletableFuture<Object> running) throws RequestException {
+        try {
+            return (T) running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RequestException)
+                throw new RequestException(cause.getMessage());
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (cause instanceof Error error)
+                throw error;
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            //the request is still running for the caller that sent it, only this caller stops waiting
+            timeouts.incrementAndGet();
+            throw new ResourceAccessException("Timed out waiting for the response of an identical request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for the response of an identical request");
+        }
+    }
+
+    public String getStatistics() {
+        return "requests=" + requests.get() + ", coalesced=" + coalesced.get() + ", timeouts=" + timeouts.get()
+                + ", inFlight=" + inFlight.size();
+    }
+}
@@ -0,0 +1,42 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Threads shared by all sessions on which the requests to the backends wait for their responses,
+ * so neither the servlet threads nor the session locks are held during a round trip.
+ */
+@Slf4j
+@Service
+public class RequestExecutorService {
+
+    private final ExecutorService executor;
+
+    public RequestExecutorService(@Value("${openapivisualizer.http.request-threads:16}") int requestThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(requestThreads, runnable -> {
+            Thread thread = new Thread(runnable, "request-worker-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Backend requests are sent from {} threads", requestThreads);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> request) {
+        return CompletableFuture.supplyAsync(request, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,242 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application wide cache for the responses of GET requests to the backends, following the HTTP caching rules:
+ * responses are served from the cache while they are fresh by Cache-Control max-age or Expires, stale responses
+ * with an ETag or Last-Modified are revalidated with a conditional request. Responses with no-store are not cached.
+ * The cache is bounded by the number of responses and their size, the least recently used responses are evicted first.
+ * Responses are only shared between requests with the same credentials. The bodies are kept as they were transferred,
+ * so compressed responses stay compressed in the cache and are decoded when they are used.
+ */
+@Slf4j
+@Service
+public class ResponseCacheService {
+
+    //the headers of a 304 Not Modified that describe the freshness and validators of the cached response
+    private static final List<String> REVALIDATION_HEADERS = List.of(HttpHeaders.DATE, HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED, HttpHeaders.EXPIRES, HttpHeaders.CACHE_CONTROL, HttpHeaders.AGE, HttpHeaders.VARY);
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Map<CacheKey, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCacheService(@Value("${openapivisualizer.response-cache.max-entries:256}") int maxEntries,
+                                @Value("${openapivisualizer.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Identifies a GET request, the parameters are sorted so their order does not matter
+     *
+     * @param credential an identity of the credentials of the request, empty for requests without credentials
+     */
+    public static CacheKey key(String serverUrl, String path, Map<String, String> pathParams,
+                               MultiValueMap<String, String> queryParams, String credential) {
+        return new CacheKey(serverUrl, path, pathParams == null ? Map.of() : new TreeMap<>(pathParams),
+                queryParams == null ? Map.of() : new TreeMap<>(queryParams), credential);
+    }
+
+    /**
+     * @return the cached response, which is fresh or has to be revalidated, see CachedResponse#isFresh
+     */
+    public synchronized Optional<CachedResponse> get(CacheKey key) {
+        CachedResponse response = responses.get(key);
+        if (response == null)
+            misses.incrementAndGet();
+        else if (response.isFresh())
+            hits.incrementAndGet();
+        return Optional.ofNullable(response);
+    }
+
+    /**
+     * Stores the response if it may be cached, otherwise an older response of the request is removed
+     */
+    public synchronized void put(CacheKey key, ResponseEntity<byte[]> response) {
+        remove(key);
+        CachedResponse cachedResponse = CachedResponse.of(response);
+        if (cachedResponse == null || cachedResponse.size > maxBytes)
+            return;
+        responses.put(key, cachedResponse);
+        bytes += cachedResponse.size;
+        for (Iterator<CachedResponse> eldest = responses.values().iterator();
+             (responses.size() > maxEntries || bytes > maxBytes) && eldest.hasNext(); ) {
+            bytes -= eldest.next().size;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+        if (log.isDebugEnabled())
+            log.debug("Response cache statistics: {}", getStatistics());
+    }
+
+    /**
+     * Updates a cached response with the headers of a 304 Not Modified response to its revalidation
+     *
+     * @return the cached response with the updated headers
+     */
+    public synchronized ResponseEntity<byte[]> revalidated(CacheKey key, CachedResponse cachedResponse, HttpHeaders notModifiedHeaders) {
+        revalidations.incrementAndGet();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(cachedResponse.headers);
+        //the other headers of the 304 describe its own transfer, not the stored body
+        REVALIDATION_HEADERS.forEach(name -> {
+            if (notModifiedHeaders.containsKey(name))
+                headers.put(name, notModifiedHeaders.get(name));
+        });
+        ResponseEntity<byte[]> response = new ResponseEntity<>(cachedResponse.body, headers, cachedResponse.status);
+        put(key, response);
+        return response;
+    }
+
+    /**
+     * Removes all responses of a server after a request that changed data, the change is visible with any credentials
+     */
+    public synchronized void invalidate(String serverUrl) {
+        responses.entrySet().removeIf(entry -> {
+            boolean remove = entry.getKey().serverUrl.equals(serverUrl);
+            if (remove)
+                bytes -= entry.getValue().size;
+            return remove;
+        });
+    }
+
+    private void remove(CacheKey key) {
+        CachedResponse removed = responses.remove(key);
+        if (removed != null)
+            bytes -= removed.size;
+    }
+
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), revalidations.get(), misses.get(), evictions.get(), responses.size(), bytes);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    public static class CacheKey {
+        private final String serverUrl;
+        private final String path;
+        private final Map<String, String> pathParams;
+        private final Map<String, List<String>> queryParams;
+        private final String credential;
+    }
+
+    public static class CachedResponse {
+        private final byte[] body;
+        private final HttpHeaders headers;
+        private final HttpStatus status;
+        private final long size;
+        private final long expiresAt;
+
+        private CachedResponse(ResponseEntity<byte[]> response, long expiresAt) {
+            this.body = response.getBody();
+            this.headers = HttpHeaders.readOnlyHttpHeaders(response.getHeaders());
+            this.status = response.getStatusCode();
+            this.size = body.length;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return the response to cache, null if it may not be cached or could never be reused
+         */
+        private static CachedResponse of(ResponseEntity<byte[]> response) {
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null)
+                return null;
+            HttpHeaders headers = response.getHeaders();
+            //the same request may get different responses
+            if (headers.getVary().contains("*"))
+                return null;
+            long lifetime = -1;
+            boolean noCache = false;
+            String cacheControl = headers.getCacheControl();
+            if (cacheControl != null) {
+                for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                    directive = directive.trim();
+                    if (directive.equals("no-store"))
+                        return null;
+                    if (directive.equals("no-cache"))
+                        noCache = true;
+                    else if (directive.startsWith("max-age="))
+                        lifetime = parseSeconds(directive.substring("max-age=".length())) * 1000;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (lifetime < 0 && headers.getExpires() != -1)
+                lifetime = headers.getExpires() - (headers.getDate() != -1 ? headers.getDate() : now);
+            if (noCache || lifetime < 0)
+                lifetime = 0;
+            //the response has already been in caches along the way for as long as its Age
+            long age = headers.getFirst(HttpHeaders.AGE) != null ? parseSeconds(headers.getFirst(HttpHeaders.AGE)) * 1000 : 0;
+            boolean hasValidator = headers.getETag() != null || headers.getLastModified() != -1;
+            if (lifetime - age <= 0 && !hasValidator)
+                return null;
+            return new CachedResponse(response, now + lifetime - age);
+        }
+
+        private static long parseSeconds(String seconds) {
+            try {
+                return Math.max(0, Long.parseLong(seconds.trim()));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        public ResponseEntity<byte[]> toResponseEntity() {
+            return new ResponseEntity<>(body, headers, status);
+        }
+
+        public String getETag() {
+            return headers.getETag();
+        }
+
+        public String getLastModified() {
+            return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CacheStatistics {
+        private final long hits;
+        private final long revalidations;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final long bytes;
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", revalidations=" + revalidations + ", misses=" + misses + ", evictions=" + evictions
+                    + ", size=" + size + ", bytes=" + bytes;
+        }
+    }
+}
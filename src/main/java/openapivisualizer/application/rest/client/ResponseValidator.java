@@ -0,0 +1,215 @@
+package openapivisualizer.application.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import openapivisualizer.application.generation.structuremodel.DataPropertyType;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks response data against the StrucSchema of the response.
+ * The schema is compiled once into a tree of nodes, each node knows the expected type, the required and known
+ * properties and the nodes of its children, so checking data needs no lookups in the StrucSchema anymore.
+ * The nodes do not walk the data themselves, the caller walks it once and asks the nodes of each level,
+ * see ClientDataService#getData. Recursive schemas compile into cyclic node graphs.
+ */
+public final class ResponseValidator {
+
+    private static final int MAX_MISMATCHES = 20;
+
+    private ResponseValidator() {
+    }
+
+    /**
+     * The mismatches found in one response, only the first ones are kept
+     */
+    public static class Mismatches {
+        private final List<String> messages = new ArrayList<>();
+        private int count = 0;
+
+        void add(String path, String message) {
+            count++;
+            if (messages.size() < MAX_MISMATCHES)
+                messages.add(path + ": " + message);
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<String> getMessages() {
+            return messages;
+        }
+    }
+
+    /**
+     * The compiled check of one schema
+     */
+    public interface Node {
+        /**
+         * Checks the type of the data node and, for objects, that the required properties are present
+         * and that there are no unknown properties
+         */
+        void check(JsonNode data, String path, Mismatches mismatches);
+
+        /**
+         * @return the node of a property of an object, null if there is nothing to check
+         */
+        Node property(String name);
+
+        /**
+         * @return the node of the array element schema that fits the data element, null if none fits
+         */
+        Node element(JsonNode dataElement);
+    }
+
+    //accepts everything, used for unknown schemas and unresolved references
+    public static final Node ANY = new Node() {
+        @Override
+        public void check(JsonNode data, String path, Mismatches mismatches) {
+        }
+
+        @Override
+        public Node property(String name) {
+            return ANY;
+        }
+
+        @Override
+        public Node element(JsonNode dataElement) {
+            return ANY;
+        }
+    };
+
+    /**
+     * Compiles the schema and everything reachable from it, each schema is compiled once
+     */
+    public static Node compile(StrucSchema strucSchema) {
+        return new Compiler().compile(strucSchema);
+    }
+
+    private static class Compiler {
+        private final Map<StrucSchema, SchemaNode> compiled = new IdentityHashMap<>();
+
+        private Node compile(StrucSchema strucSchema) {
+            if (strucSchema == null || strucSchema.getStrucValue() == null
+                    || strucSchema.getStrucValue().getType() == DataPropertyType.SCHEMA)
+                return ANY;
+            SchemaNode node = compiled.get(strucSchema);
+            if (node != null)
+                return node;
+            StrucValue strucValue = strucSchema.getStrucValue();
+            node = new SchemaNode(strucValue.getType());
+            //registered before the children are compiled, so recursive references end at this node
+            compiled.put(strucSchema, node);
+            node.requiredProperties = List.copyOf(strucValue.getRequiredProperties());
+            //objects allow additional properties unless the spec says additionalProperties: false
+            node.openProperties = !strucValue.isClosed() || strucValue.getAdditionalPropertySchema() != null;
+            SchemaNode finalNode = node;
+            strucValue.getProperties().forEach((name, property) -> finalNode.properties.put(name, compile(property)));
+            node.additionalProperties = strucValue.getAdditionalPropertySchema() == null
+                    ? ANY : compile(strucValue.getAdditionalPropertySchema());
+            for (StrucSchema arrayElement : strucValue.getArrayElements())
+                node.elements.add(compile(arrayElement));
+            for (StrucSchema variant : strucValue.getVariants())
+                node.variants.add(compile(variant));
+            return node;
+        }
+    }
+
+    private static class SchemaNode implements Node {
+        private final DataPropertyType type;
+        private final Map<String, Node> properties = new HashMap<>();
+        private final List<Node> elements = new ArrayList<>();
+        //the data has to fit one of the variants of a oneOf or anyOf schema
+        private final List<Node> variants = new ArrayList<>();
+        private List<String> requiredProperties;
+        private boolean openProperties;
+        private Node additionalProperties;
+
+        private SchemaNode(DataPropertyType type) {
+            this.type = type;
+        }
+
+        @Override
+        public void check(JsonNode data, String path, Mismatches mismatches) {
+            if (data.isNull())
+                return;
+            if (!variants.isEmpty()) {
+                if (!fits(data))
+                    mismatches.add(path, "fits none of the " + variants.size() + " variants");
+                return;
+            }
+            if (!matchesType(data)) {
+                mismatches.add(path, "expected " + type + " but was " + data.getNodeType());
+                return;
+            }
+            if (type != DataPropertyType.OBJECT)
+                return;
+            for (String requiredProperty : requiredProperties) {
+                if (!data.has(requiredProperty))
+                    mismatches.add(path, "required property " + requiredProperty + " is missing");
+            }
+            if (!openProperties) {
+                data.fieldNames().forEachRemaining(fieldName -> {
+                    if (!properties.containsKey(fieldName))
+                        mismatches.add(path, "property " + fieldName + " is not part of the schema");
+                });
+            }
+        }
+
+        @Override
+        public Node property(String name) {
+            Node property = properties.get(name);
+            return property != null ? property : additionalProperties;
+        }
+
+        @Override
+        public Node element(JsonNode dataElement) {
+            if (elements.isEmpty())
+                return ANY;
+            if (elements.size() == 1)
+                return elements.get(0);
+            //of several element schemas the first one that the element fits is used, like the ArrayComponent does
+            for (Node element : elements) {
+                if (!(element instanceof SchemaNode schemaNode) || schemaNode.fits(dataElement))
+                    return element;
+            }
+            return null;
+        }
+
+        private boolean fits(JsonNode data) {
+            if (!variants.isEmpty())
+                return variants.stream().anyMatch(variant -> !(variant instanceof SchemaNode schemaNode) || schemaNode.fits(data));
+            if (!matchesType(data))
+                return false;
+            if (type != DataPropertyType.OBJECT || openProperties)
+                return true;
+            for (var fieldNames = data.fieldNames(); fieldNames.hasNext(); ) {
+                if (!properties.containsKey(fieldNames.next()))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean matchesType(JsonNode data) {
+            return switch (type) {
+                case OBJECT -> data.isObject();
+                case ARRAY -> data.isArray();
+                case INTEGER -> data.isIntegralNumber() || data.isNumber() && data.asDouble() % 1 == 0;
+                case DOUBLE -> data.isNumber();
+                case BOOLEAN -> data.isBoolean();
+                case STRING -> data.isTextual();
+                default -> true;
+            };
+        }
+    }
+}
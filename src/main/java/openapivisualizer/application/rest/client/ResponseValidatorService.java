@@ -0,0 +1,24 @@
+package openapivisualizer.application.rest.client;
+
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Compiles the validators of the response schemas once and shares them between all sessions.
+ * Validators are released together with the structure their schema belongs to.
+ */
+@Service
+public class ResponseValidatorService {
+
+    private final Map<StrucSchema, ResponseValidator.Node> validators = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public ResponseValidator.Node getValidator(StrucSchema responseSchema) {
+        if (responseSchema == null)
+            return ResponseValidator.ANY;
+        return validators.computeIfAbsent(responseSchema, ResponseValidator::compile);
+    }
+}
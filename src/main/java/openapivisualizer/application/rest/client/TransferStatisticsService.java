@@ -0,0 +1,55 @@
+package openapivisualizer.application.rest.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the transferred and the decoded bytes of the responses per endpoint, which shows how much the compression saves
+ */
+@Slf4j
+@Service
+public class TransferStatisticsService {
+
+    private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    private static class EndpointStatistics {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder transferredBytes = new LongAdder();
+        private final LongAdder decodedBytes = new LongAdder();
+
+        @Override
+        public String toString() {
+            long transferred = transferredBytes.sum();
+            long decoded = decodedBytes.sum();
+            return "responses=" + responses.sum() + ", transferred=" + transferred + ", decoded=" + decoded
+                    + (decoded > 0 ? String.format(", ratio=%.2f", (double) transferred / decoded) : "");
+        }
+    }
+
+    /**
+     * @param endpoint         the server url and path template of the request
+     * @param transferredBytes the size of the body as it was transferred, compressed if the server compressed it
+     * @param decodedBytes     the size of the decoded body
+     */
+    public void record(String endpoint, long transferredBytes, long decodedBytes) {
+        EndpointStatistics statistics = endpoints.computeIfAbsent(endpoint, key -> new EndpointStatistics());
+        statistics.responses.increment();
+        statistics.transferredBytes.add(transferredBytes);
+        statistics.decodedBytes.add(decodedBytes);
+        log.debug("Transfer statistics of {}: {}", endpoint, statistics);
+    }
+
+    /**
+     * @return the statistics of all endpoints, sorted by endpoint
+     */
+    public Map<String, String> getStatistics() {
+        Map<String, String> statistics = new TreeMap<>();
+        endpoints.forEach((endpoint, endpointStatistics) -> statistics.put(endpoint, endpointStatistics.toString()));
+        return statistics;
+    }
+}
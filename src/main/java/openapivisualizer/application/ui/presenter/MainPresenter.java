@@ -3,7 +3,13 @@ package openapivisualizer.application.ui.presenter;
 //import com.example.application.data.services.Deprecated.StructureProvider;
 //import com.example.application.data.structureModel.OpenApi;
 
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.shared.Registration;
+import openapivisualizer.application.generation.services.ExtractionJobService;
+import openapivisualizer.application.generation.services.SpecWatchService;
+import openapivisualizer.application.generation.services.StructureCacheService;
 import openapivisualizer.application.generation.services.StructureProviderService;
+import openapivisualizer.application.generation.structuremodel.OpenApiStructure;
 import openapivisualizer.application.rest.client.ClientDataService;
 import openapivisualizer.application.ui.components.ExtractionSettingsDialog;
 import openapivisualizer.application.ui.service.NotificationService;
@@ -12,8 +18,16 @@ import com.vaadin.flow.spring.annotation.UIScope;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Controller
 @UIScope
@@ -23,19 +37,32 @@ public class MainPresenter implements MainView.ActionListener,ExtractionSettings
     private final NotificationService notificationService;
     private final ClientDataService clientDataService;
     private final TagPresenter tagPresenter;
+    private final ExtractionJobService extractionJobService;
+    private final SpecWatchService specWatchService;
+    private final StructureCacheService structureCacheService;
 
     private final List<String> serverList = new ArrayList<>();
 
     private String currentServerURL = "/";
     private boolean onlyListViews = false;
     private boolean showAllPaths = false;
+    private Future<?> loadingJob = null;
+    private boolean watching = false;
+    private String loadedSource = null;
+    private Registration specWatch = null;
     private final MainView view  = new MainView(this, StructureProviderService.DEFAULT_PARSE_OBJECT,currentServerURL,serverList);
 
 
-    public MainPresenter(NotificationService notificationService, ClientDataService clientDataService, TagPresenter tagPresenter) {
+    public MainPresenter(NotificationService notificationService, ClientDataService clientDataService, TagPresenter tagPresenter,
+                         ExtractionJobService extractionJobService, SpecWatchService specWatchService,
+                         StructureCacheService structureCacheService) {
         this.notificationService = notificationService;
         this.clientDataService = clientDataService;
         this.tagPresenter = tagPresenter;
+        this.extractionJobService = extractionJobService;
+        this.specWatchService = specWatchService;
+        this.structureCacheService = structureCacheService;
+        UI.getCurrent().addDetachListener(event -> stopWatching());
     }
 
     public MainView getView() {
@@ -45,10 +72,123 @@ public class MainPresenter implements MainView.ActionListener,ExtractionSettings
 
     @Override
     public void openApiAction(String source) {
-        tagPresenter.prepareStructure(source,onlyListViews, showAllPaths);
-        serverList.clear();
-        serverList.addAll(tagPresenter.getServers());
-        view.setServers(serverList);
+        loadOpenApi(source, null);
+    }
+
+    /**
+     * @param content the content of the spec if it has already been downloaded, otherwise null
+     */
+    private void loadOpenApi(String source, byte[] content) {
+        if (loadingJob != null && !loadingJob.isDone()) {
+            notificationService.postNotification("A specification is already being loaded", true);
+            return;
+        }
+        UI ui = UI.getCurrent();
+        boolean onlyListViews = this.onlyListViews;
+        boolean showAllPaths = this.showAllPaths;
+        Set<String> registeredTags = tagPresenter.getRegisteredTagNames();
+        view.showProgress(StructureProviderService.Stage.DOWNLOAD.getDescription(), 0);
+        //the queued updates of the UI run under the session lock, so they see the job even if they were queued before it was set.
+        //A job that is no longer the loading job has been cancelled, its updates are dropped even if it has finished already.
+        AtomicReference<Future<?>> job = new AtomicReference<>();
+        job.set(extractionJobService.submit(() -> {
+            try {
+                OpenApiStructure openApiStructure = tagPresenter.prepareStructure(source, content, registeredTags,
+                        stage -> {
+                            if (!Thread.currentThread().isInterrupted())
+                                ui.access(() -> {
+                                    if (loadingJob == job.get())
+                                        view.showProgress(stage.getDescription(), stage.getProgress());
+                                });
+                        });
+                ui.access(() -> {
+                    //a cancel between queuing and running this update discards the structure
+                    if (loadingJob != job.get())
+                        return;
+                    loadingJob = null;
+                    view.hideProgress();
+                    tagPresenter.registerPresenters(openApiStructure, onlyListViews, showAllPaths);
+                    serverList.clear();
+                    serverList.addAll(tagPresenter.getServers());
+                    view.setServers(serverList);
+                    if (!source.equals(loadedSource)) {
+                        loadedSource = source;
+                        startWatching();
+                    }
+                });
+            } catch (CancellationException e) {
+                log.info("Loading of {} has been cancelled", source);
+            } catch (RuntimeException e) {
+                log.error("Loading of {} failed", source, e);
+                ui.access(() -> {
+                    if (loadingJob != job.get())
+                        return;
+                    loadingJob = null;
+                    view.hideProgress();
+                    notificationService.postNotification("Loading the specification failed: " + e.getMessage(), true);
+                });
+            }
+        }));
+        loadingJob = job.get();
+    }
+
+    @Override
+    public void cancelOpenApiAction() {
+        //a finished job whose result has not been shown yet is cancelled as well
+        if (loadingJob != null) {
+            loadingJob.cancel(true);
+            loadingJob = null;
+            notificationService.postNotification("Loading the specification has been cancelled", false);
+        }
+        view.hideProgress();
+    }
+
+    @Override
+    public void setWatching(boolean watching) {
+        this.watching = watching;
+        startWatching();
+    }
+
+    /**
+     * Watches the loaded spec if watching is enabled, a change of the spec loads it again
+     */
+    private void startWatching() {
+        stopWatching();
+        if (!watching || loadedSource == null)
+            return;
+        String source = loadedSource;
+        UI ui = UI.getCurrent();
+        //the poll passes on the changed content it has fetched, so the reload does not download it again
+        Consumer<byte[]> reload = content -> {
+            //a file replaced within the same millisecond keeps its version token, so the cached structure is dropped
+            structureCacheService.invalidate(source);
+            ui.access(() -> {
+                if (source.equals(loadedSource) && (loadingJob == null || loadingJob.isDone())) {
+                    notificationService.postNotification("OpenAPI Doc has changed, reloading", false);
+                    loadOpenApi(source, content);
+                }
+            });
+        };
+        if (source.startsWith("http")) {
+            specWatch = specWatchService.poll(source, () -> clientDataService.fetchChangedOpenApi(source), reload);
+            //the extraction remembers the version it downloaded, a structure from the cache has not been downloaded though
+            if (!clientDataService.hasOpenApiBaseline(source))
+                extractionJobService.submit(() -> clientDataService.fetchChangedOpenApi(source));
+        } else {
+            try {
+                specWatch = specWatchService.watchFile(Path.of(source), () -> reload.accept(null));
+            } catch (IOException | InvalidPathException e) {
+                log.warn("Could not watch {}: {}", source, e.getMessage());
+                notificationService.postNotification("OpenAPI Doc cannot be watched: " + e.getMessage(), true);
+            }
+        }
+    }
+
+    private void stopWatching() {
+        if (specWatch != null) {
+            specWatch.remove();
+            specWatch = null;
+        }
     }
 
     @Override
@@ -8,13 +8,13 @@ import openapivisualizer.application.generation.structuremodel.DataPropertyType;
 import openapivisualizer.application.generation.structuremodel.StrucSchema;
 import openapivisualizer.application.generation.structuremodel.TagGroupMD;
 import openapivisualizer.application.rest.client.ClientDataService;
-import openapivisualizer.application.rest.client.RequestException;
 import openapivisualizer.application.rest.client.restdatamodel.DataSchema;
 import openapivisualizer.application.ui.components.DeleteDialog;
 import openapivisualizer.application.ui.components.PostDialog;
 import openapivisualizer.application.ui.components.PutDialog;
 import openapivisualizer.application.ui.components.SettingsDialog;
 import openapivisualizer.application.ui.components.detaillayout.DetailLayout;
+import openapivisualizer.application.ui.service.ColumnPlanService;
 import openapivisualizer.application.ui.service.NotificationService;
 import openapivisualizer.application.ui.view.MasterDetailView;
 import openapivisualizer.application.ui.view.View;
@@ -27,6 +27,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 public class MasterDetailPresenter implements MasterDetailView.MDActionListener, SettingsDialog.SettingsActionListener,
@@ -37,21 +39,28 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
     private Map<String, String> pathParams = new HashMap<>();
     private List<SettingsDialog.ColumnGridElement> columnsSettings = null;
     private String currentWrappedPath = "";
+    //the latest data request, responses of older requests are dropped
+    private CompletableFuture<DataSchema> dataRequest = null;
 
     private final ClientDataService clientDataService;
     private final NotificationService notificationService;
+    private final ColumnPlanService columnPlanService;
     private final DetailLayout.NavigationListener navigationListener;
     @Getter
     private final TagGroupMD tagGroupMD;
 
+    @Getter
     private final Map<String, MasterDetailPresenter> relationPresenter = new HashMap<>();
+    @Getter
     private MasterDetailPresenter uriMasterDetailPresenter = null;
 
     private String parentPresenter;
 
 
-    public MasterDetailPresenter(NotificationService notificationService, DetailLayout.NavigationListener navigationListener, ClientDataService clientDataService, TagGroupMD tagGroup, String parentPresenter) {
+    public MasterDetailPresenter(NotificationService notificationService, ColumnPlanService columnPlanService, DetailLayout.NavigationListener navigationListener,
+                                 ClientDataService clientDataService, TagGroupMD tagGroup, String parentPresenter) {
         this.clientDataService = clientDataService;
+        this.columnPlanService = columnPlanService;
         this.navigationListener = navigationListener;
         this.notificationService = notificationService;
         this.parentPresenter = parentPresenter;
@@ -63,9 +72,9 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
         createNewView();
 
         if (tagGroup.getUriTagGroup() != null)
-            uriMasterDetailPresenter = new MasterDetailPresenter(notificationService, navigationListener, clientDataService, tagGroup.getUriTagGroup(), "/masterDetail" + tagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath());
+            uriMasterDetailPresenter = new MasterDetailPresenter(notificationService, columnPlanService, navigationListener, clientDataService, tagGroup.getUriTagGroup(), "/masterDetail" + tagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath());
 
-        tagGroup.getRelationTagGroup().forEach((key, value) -> relationPresenter.put(key, new MasterDetailPresenter(notificationService, navigationListener, clientDataService, value, "")));
+        tagGroup.getRelationTagGroup().forEach((key, value) -> relationPresenter.put(key, new MasterDetailPresenter(notificationService, columnPlanService, navigationListener, clientDataService, value, "")));
 
     }
 
@@ -75,86 +84,6 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
     }
 
 
-    public View getIfHasTargetView(String path) {
-        String[] splittedPath = path.split("/");
-
-        //what if part of internal presenter
-        Map<String, String> pathParams = new HashMap<>();
-        for (Map.Entry<String, MasterDetailPresenter> presenterEntry : relationPresenter.entrySet()) {
-            String[] splittedPresenterPath = presenterEntry.getKey().split("/");
-            if (splittedPath.length == splittedPresenterPath.length) {
-                boolean matching = true;
-                for (int i = 0; i < splittedPath.length; i++) {
-                    if (!splittedPresenterPath[i].startsWith("{") && !splittedPath[i].equals(splittedPresenterPath[i])
-                    ) {
-                        matching = false;
-                        break;
-                    } else if (splittedPresenterPath[i].startsWith("{")) {
-                        pathParams.put(splittedPresenterPath[i].substring(1, splittedPresenterPath[i].length() - 1), splittedPath[i]);
-                    }
-                }
-                if (matching) {
-                    return presenterEntry.getValue().getView(pathParams);
-                } else {
-                    pathParams.clear();
-                }
-            }
-        }
-
-        //what if secondary path
-        if (tagGroupMD.getUriTagGroup() != null) {
-            String secondaryPath = tagGroupMD.getUriTagGroup().getApiPathMap().get(HttpMethod.GET).getPath();
-            //checking the secondary path here
-            if (secondaryPath != null) {
-                String[] splittedPresenterPath = secondaryPath.split("/");
-                if (splittedPath.length == splittedPresenterPath.length) {
-                    boolean matching = true;
-                    for (int i = 0; i < splittedPath.length; i++) {
-                        if (!splittedPresenterPath[i].startsWith("{") && !splittedPath[i].equals(splittedPresenterPath[i])
-                        ) {
-                            matching = false;
-                            break;
-                        } else if (splittedPresenterPath[i].startsWith("{")) {
-                            pathParams.put(splittedPresenterPath[i].substring(1, splittedPresenterPath[i].length() - 1), splittedPath[i]);
-                        }
-                    }
-                    if (matching) {
-                        return uriMasterDetailPresenter.getView(pathParams);
-                    } else {
-                        pathParams.clear();
-                    }
-                }
-            }
-        }
-
-        //what if primaryPath with {}
-        if (tagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath().contains("{")) {
-            String primaryPath = tagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath();
-            //checking the secondary path here
-            if (primaryPath != null) {
-                String[] splittedPresenterPath = primaryPath.split("/");
-                if (splittedPath.length == splittedPresenterPath.length) {
-                    boolean matching = true;
-                    for (int i = 0; i < splittedPath.length; i++) {
-                        if (!splittedPresenterPath[i].startsWith("{") && !splittedPath[i].equals(splittedPresenterPath[i])
-                        ) {
-                            matching = false;
-                            break;
-                        } else if (splittedPresenterPath[i].startsWith("{")) {
-                            pathParams.put(splittedPresenterPath[i].substring(1, splittedPresenterPath[i].length() - 1), splittedPath[i]);
-                        }
-                    }
-                    if (matching) {
-                        return getView(pathParams);
-                    } else {
-                        pathParams.clear();
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
     @Override
     public void openPostDialog() {
         PostDialog postDialog = new PostDialog(this);
@@ -184,18 +113,59 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
         this.columnsSettings = initialColumnSettings;
     }
 
+    /**
+     * Requests the data without blocking the UI, the view shows that it is loading until the response is pushed to it
+     */
     @Override
     public void refreshData() {
-        try {
-            view.setData(clientDataService.getData(tagGroupMD.getApiPathMap().get(HttpMethod.GET),
-                    currentWrappedPath, pathParams, queryParams));
+        UI ui = UI.getCurrent();
+        MasterDetailView shownView = view;
+        CompletableFuture<DataSchema> request = clientDataService.getDataAsync(tagGroupMD.getApiPathMap().get(HttpMethod.GET),
+                currentWrappedPath, pathParams, queryParams);
+        dataRequest = request;
+        shownView.showLoading();
+        request.whenComplete((data, error) -> ui.access(() -> {
+            if (request != dataRequest)
+                return;
+            dataRequest = null;
+            shownView.hideLoading();
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                log.error("Error trying to access: {}", cause.getMessage(), cause);
+                notificationService.postNotification("Requesting data failed: " + cause.getMessage(), true);
+                return;
+            }
+            //the view is replaced if the wrapped schema path changes while the request is running
+            if (shownView != view)
+                return;
+            view.setData(data);
             if (columnsSettings != null)
                 setGridColumnSettings(columnsSettings);
-        } catch (RequestException | ResourceAccessException e) {
-            log.error("Error trying to access: {}", e.getMessage());
-            e.printStackTrace();
-            notificationService.postNotification("Requesting data failed: " + e.getMessage(), true);
-        }
+        }));
+    }
+
+    /**
+     * Runs the follow up on the UI once the write request completed, errors are reported to the user
+     */
+    private void afterWrite(CompletableFuture<Void> writeRequest, Runnable onSuccess, Runnable onFailure) {
+        UI ui = UI.getCurrent();
+        writeRequest.whenComplete((ignored, error) -> ui.access(() -> {
+            if (error == null) {
+                onSuccess.run();
+                return;
+            }
+            Throwable cause = unwrap(error);
+            log.error("Error trying to access: {}", cause.getMessage(), cause);
+            if (cause instanceof ResourceAccessException)
+                notificationService.postNotification("Error trying to connect to server.", true);
+            else
+                notificationService.postNotification("Request failed: " + cause.getMessage(), true);
+            onFailure.run();
+        }));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     @Override
@@ -206,14 +176,8 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
     @Override
     public void postAction(String path, MultiValueMap<String, String> queryParameters, Map<String, String> pathVariables, DataSchema body) {
         if (tagGroupMD.getApiPathMap().containsKey(HttpMethod.POST)) {
-            try {
-                clientDataService.postData(tagGroupMD.getApiPathMap().get(HttpMethod.POST), body, queryParameters, pathVariables);
-                refreshData();
-            } catch (ResourceAccessException e) {
-                log.error("Error trying to access: {}", e.getMessage());
-                e.printStackTrace();
-                notificationService.postNotification("Error trying to connect to server.", true);
-            }
+            afterWrite(clientDataService.postDataAsync(tagGroupMD.getApiPathMap().get(HttpMethod.POST), body, queryParameters, pathVariables),
+                    this::refreshData, () -> {});
         }
     }
 
@@ -221,35 +185,23 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
     public void deleteAction(String path, Map<String, String> pathVariables, MultiValueMap<String, String> queryParameters) {
         if (tagGroupMD.getApiPathMap().containsKey(HttpMethod.DELETE)) {
             //löschanfrage senden
-            try {
-                clientDataService.deleteData(tagGroupMD.getApiPathMap().get(HttpMethod.DELETE).getPath(),
-                        pathVariables, queryParameters);
+            afterWrite(clientDataService.deleteDataAsync(tagGroupMD.getApiPathMap().get(HttpMethod.DELETE).getPath(),
+                    pathVariables, queryParameters), () -> {
                 //if uri path -> needs to navigate away
                 if (parentPresenter != null && !parentPresenter.equals("")) {
                     UI.getCurrent().navigate(parentPresenter);
                 } else {
                     refreshData();
                 }
-            } catch (ResourceAccessException e) {
-                log.error("Error trying to access: {}", e.getMessage());
-                e.printStackTrace();
-                notificationService.postNotification("Error trying to connect to server.", true);
-                refreshData();
-            }
+            }, this::refreshData);
         }
     }
 
     @Override
     public void putAction(String path, MultiValueMap<String, String> queryParameters, Map<String, String> pathParams, DataSchema properties) {
         if (tagGroupMD.getApiPathMap().containsKey(HttpMethod.PUT)) {
-            try {
-                clientDataService.putData(tagGroupMD.getApiPathMap().get(HttpMethod.PUT), properties, queryParameters, pathParams);
-                refreshData();
-            } catch (ResourceAccessException e) {
-                log.error("Error trying to access: {}", e.getMessage());
-                e.printStackTrace();
-                notificationService.postNotification("Error trying to connect to server.", true);
-            }
+            afterWrite(clientDataService.putDataAsync(tagGroupMD.getApiPathMap().get(HttpMethod.PUT), properties, queryParameters, pathParams),
+                    this::refreshData, () -> {});
         }
     }
 
@@ -316,7 +268,7 @@ public class MasterDetailPresenter implements MasterDetailView.MDActionListener,
 
         }
         view = new MasterDetailView(tagGroupMD.getTagName(), navigationListener, this,
-                shownGetSchema,
+                shownGetSchema, columnPlanService.getColumnPlan(shownGetSchema),
                 tagGroupMD.getApiPathMap().containsKey(HttpMethod.POST),
                 tagGroupMD.getApiPathMap().containsKey(HttpMethod.PUT),
                 tagGroupMD.getApiPathMap().containsKey(HttpMethod.DELETE), false);
@@ -5,23 +5,23 @@ import com.vaadin.flow.router.PreserveOnRefresh;
 import com.vaadin.flow.spring.annotation.UIScope;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import openapivisualizer.application.generation.services.PathTemplateTrie;
 import openapivisualizer.application.generation.services.StructureProviderService;
 import openapivisualizer.application.generation.services.TagGroupConverterService;
 import openapivisualizer.application.generation.structuremodel.OpenApiStructure;
+import openapivisualizer.application.generation.structuremodel.TagGroup;
 import openapivisualizer.application.generation.structuremodel.TagGroupLV;
 import openapivisualizer.application.generation.structuremodel.TagGroupMD;
 import openapivisualizer.application.rest.client.ClientDataService;
 import openapivisualizer.application.ui.components.detaillayout.DetailLayout;
 import openapivisualizer.application.ui.other.AccessPoint;
+import openapivisualizer.application.ui.service.ColumnPlanService;
 import openapivisualizer.application.ui.service.NotificationService;
 import openapivisualizer.application.ui.view.View;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Controller;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 
 @Controller
 @PreserveOnRefresh
@@ -34,16 +34,47 @@ public class TagPresenter implements DetailLayout.NavigationListener {
     private final StructureProviderService structureProviderService;
     private final TagGroupConverterService tagGroupConverterService;
     private final NotificationService notificationService;
+    private final ColumnPlanService columnPlanService;
+    private final Map<String, RegisteredTag> registeredTags = new HashMap<>();
+    private final Set<String> pendingTags = new HashSet<>();
+    //all routes below /masterDetail, resolved to the presenter of the matching path template
+    private PathTemplateTrie<MasterDetailPresenter> masterDetailRoutes = new PathTemplateTrie<>();
 
 
     @Getter
     private OpenApiStructure openApiStructure;
+    private boolean onlyListViews = false;
+    private boolean showAllPaths = false;
 
-    public TagPresenter(ClientDataService clientDataService, StructureProviderService structureProviderService, TagGroupConverterService tagGroupConverterService, NotificationService notificationService) {
+    /**
+     * The tag group a tag was registered with and the paths of the master detail presenters created for it
+     */
+    private static class RegisteredTag {
+        private final TagGroup tagGroup;
+        private final List<String> masterDetailPaths = new ArrayList<>();
+        private String masterDetailPath = null;
+
+        private RegisteredTag(TagGroup tagGroup) {
+            this.tagGroup = tagGroup;
+        }
+
+        /**
+         * Compares the fingerprints the tag groups got when they were analysed, nothing is hashed on the UI thread
+         */
+        private boolean isUnchanged(TagGroup newTagGroup) {
+            if (tagGroup == newTagGroup)
+                return true;
+            return tagGroup.getFingerprint() != null && tagGroup.getFingerprint().equals(newTagGroup.getFingerprint());
+        }
+    }
+
+    public TagPresenter(ClientDataService clientDataService, StructureProviderService structureProviderService, TagGroupConverterService tagGroupConverterService,
+                        NotificationService notificationService, ColumnPlanService columnPlanService) {
         this.clientDataService = clientDataService;
         this.structureProviderService = structureProviderService;
         this.tagGroupConverterService = tagGroupConverterService;
         this.notificationService = notificationService;
+        this.columnPlanService = columnPlanService;
     }
 
     public List<String> getServers() {
@@ -51,66 +82,197 @@ public class TagPresenter implements DetailLayout.NavigationListener {
     }
 
     private void clearOldPresenters() {
-        AccessPoint.getMainLayout().removeAll();
         listPresenters.clear();
         masterDetailPresenters.clear();
+        registeredTags.clear();
+        pendingTags.clear();
+    }
+
+    /**
+     * @return the tags whose presenters are registered, a reload compares their tag groups with the new ones
+     */
+    public Set<String> getRegisteredTagNames() {
+        return new HashSet<>(registeredTags.keySet());
     }
 
-    public void prepareStructure(String source, boolean onlyListViews, boolean showAllPaths) {
-        OpenApiStructure openApiStructure = structureProviderService.generateApiStructure(source);
-        registerPresenters(openApiStructure, onlyListViews, showAllPaths);
+    /**
+     * Extracts the structure of the spec, can be called from a background thread.
+     * The presenters are registered afterwards with registerPresenters on the UI thread.
+     *
+     * @param content        the content of the spec if it has already been downloaded, otherwise null
+     * @param registeredTags the tags that are registered at the moment, see getRegisteredTagNames
+     */
+    public OpenApiStructure prepareStructure(String source, byte[] content, Set<String> registeredTags,
+                                             StructureProviderService.ProgressListener progressListener) {
+        OpenApiStructure structure = structureProviderService.generateApiStructure(source, content, progressListener);
+        //registerPresenters compares the registered tags right away, so a lazy structure analyses them here instead of on the UI thread
+        if (structure.isLazy())
+            registeredTags.forEach(structure::getTagGroup);
+        return structure;
     }
 
+    /**
+     * Registers the presenters of a structure. If the extraction settings did not change,
+     * the presenters of tags whose tag group is structurally unchanged are kept together with their state,
+     * only the presenters of changed, added and removed tags are rebuilt.
+     */
     public void registerPresenters(OpenApiStructure openApiStructure, boolean onlyListViews, boolean showAllPaths) {
-        clearOldPresenters();
+        if (this.openApiStructure == null || this.onlyListViews != onlyListViews || this.showAllPaths != showAllPaths)
+            clearOldPresenters();
+        this.openApiStructure = openApiStructure;
+        this.onlyListViews = onlyListViews;
+        this.showAllPaths = showAllPaths;
         log.info("Registering presenters...");
-        openApiStructure.getTagGroups().forEach(tagGroup -> {
-            if (tagGroupConverterService.isMDVStructure(tagGroup) && !onlyListViews) {
-                TagGroupMD tagGroupMD = tagGroupConverterService.createMDTagGroup(tagGroup);
-                registerMasterDetailPresenter(tagGroupMD, true, null);
-            } else {
-                TagGroupLV tagGroupLV = tagGroupConverterService.createTagGroupLV(tagGroup, showAllPaths);
-                registerListPresenter(tagGroupLV, showAllPaths);
+
+        Set<String> tagNames = new HashSet<>(openApiStructure.getTagNames());
+        new ArrayList<>(registeredTags.keySet()).stream().filter(tagName -> !tagNames.contains(tagName)).forEach(this::unregisterTag);
+        pendingTags.clear();
+        int unchangedTags = 0;
+        if (openApiStructure.isLazy()) {
+            //the presenters are registered when the tag is visited for the first time, see prepareTag
+            //tags that have already been visited were analysed by prepareStructure, their fingerprints tell whether they changed
+            for (String tagName : openApiStructure.getTagNames()) {
+                if (registeredTags.containsKey(tagName))
+                    unchangedTags += updateTagGroup(openApiStructure.getTagGroup(tagName), tagName) ? 1 : 0;
+                else
+                    pendingTags.add(tagName);
             }
+        } else {
+            for (TagGroup tagGroup : openApiStructure.getTagGroups())
+                unchangedTags += updateTagGroup(tagGroup, tagGroup.getTagName()) ? 1 : 0;
+        }
+        log.info("{} of {} tags are unchanged", unchangedTags, tagNames.size());
+        rebuildMasterDetailRoutes();
+        applyNavigationTargets();
+    }
+
+    /**
+     * Keeps the presenters of the tag if its tag group did not change, otherwise they are replaced
+     *
+     * @return true if the presenters were kept
+     */
+    private boolean updateTagGroup(TagGroup tagGroup, String tagName) {
+        RegisteredTag registeredTag = registeredTags.get(tagName);
+        if (registeredTag != null && tagGroup != null && registeredTag.isUnchanged(tagGroup))
+            return true;
+        unregisterTag(tagName);
+        if (tagGroup != null)
+            registerTagGroup(tagGroup);
+        return false;
+    }
+
+    private void unregisterTag(String tagName) {
+        RegisteredTag registeredTag = registeredTags.remove(tagName);
+        if (registeredTag != null) {
+            registeredTag.masterDetailPaths.forEach(masterDetailPresenters::remove);
+            listPresenters.remove(tagName);
+        }
+    }
+
+    /**
+     * Analyses a tag of a lazy structure and registers its presenters, if this has not been done yet
+     */
+    public void prepareTag(String tagName) {
+        if (pendingTags.remove(tagName)) {
+            TagGroup tagGroup = openApiStructure.getTagGroup(tagName);
+            if (tagGroup != null)
+                registerTagGroup(tagGroup);
+        }
+    }
+
+    /**
+     * Analyses the pending tag that has an operation with a path template matching the path, if there is one
+     */
+    private void prepareTagOfPath(String path) {
+        PathTemplateTrie<String> pendingRoutes = new PathTemplateTrie<>();
+        new TreeSet<>(pendingTags).forEach(tagName -> openApiStructure.getTagPaths(tagName)
+                .forEach(template -> pendingRoutes.putIfAbsent(template, tagName)));
+        PathTemplateTrie.Match<String> pendingRoute = pendingRoutes.match(path);
+        if (pendingRoute != null)
+            prepareTag(pendingRoute.getValue());
+    }
+
+    private void registerTagGroup(TagGroup tagGroup) {
+        RegisteredTag registeredTag = new RegisteredTag(tagGroup);
+        registeredTags.put(tagGroup.getTagName(), registeredTag);
+        if (tagGroupConverterService.isMDVStructure(tagGroup) && !onlyListViews) {
+            TagGroupMD tagGroupMD = tagGroupConverterService.createMDTagGroup(tagGroup);
+            registeredTag.masterDetailPath = registerMasterDetailPresenter(tagGroupMD, null, registeredTag);
+        } else {
+            TagGroupLV tagGroupLV = tagGroupConverterService.createTagGroupLV(tagGroup, showAllPaths);
+            registerListPresenter(tagGroupLV, showAllPaths, registeredTag);
+        }
+    }
+
+    /**
+     * @return the route of the tag, if it is shown as a master detail view instead of a list view
+     */
+    public String getMasterDetailRoute(String tagName) {
+        RegisteredTag registeredTag = registeredTags.get(tagName);
+        if (registeredTag == null || registeredTag.masterDetailPath == null)
+            return null;
+        return "masterDetail" + registeredTag.masterDetailPath;
+    }
+
+    /**
+     * Adds the menu entries of all tags, tags of lazy structures are always entered through their list route
+     */
+    private void applyNavigationTargets() {
+        AccessPoint.getMainLayout().removeAll();
+        openApiStructure.getTagNames().forEach(tagName -> {
+            RegisteredTag registeredTag = registeredTags.get(tagName);
+            if (openApiStructure.isLazy() || (registeredTag != null && listPresenters.containsKey(tagName)))
+                AccessPoint.getMainLayout().addNavigationTarget(tagName, false, tagName);
+            else if (registeredTag != null && registeredTag.masterDetailPath != null)
+                AccessPoint.getMainLayout().addNavigationTarget(tagName, true, registeredTag.masterDetailPath);
         });
         AccessPoint.getMainLayout().applyNavigationTargets();
-        this.openApiStructure = openApiStructure;
     }
 
-    private void registerMasterDetailPresenter(TagGroupMD TagGroupMD, boolean menuNavigationable, String parentPresenter) {
+    /**
+     * @return the path of the registered presenter or null if none was registered
+     */
+    private String registerMasterDetailPresenter(TagGroupMD TagGroupMD, String parentPresenter, RegisteredTag registeredTag) {
         log.info("Registering Master-Detail Presenter for the {} view", TagGroupMD.getTagName());
 
         if (TagGroupMD.getApiPathMap().get(HttpMethod.GET).getResponseStrucSchema() != null) {
-            MasterDetailPresenter masterDetailPresenter = new MasterDetailPresenter(notificationService, this, clientDataService, TagGroupMD, parentPresenter);
+            MasterDetailPresenter masterDetailPresenter = new MasterDetailPresenter(notificationService, columnPlanService, this, clientDataService, TagGroupMD, parentPresenter);
 
-            masterDetailPresenters.put(TagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath(), masterDetailPresenter);
-
-            if (menuNavigationable)
-                AccessPoint.getMainLayout().addNavigationTarget(TagGroupMD.getTagName(), true
-                        , TagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath());
+            String path = TagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath();
+            masterDetailPresenters.put(path, masterDetailPresenter);
+            registeredTag.masterDetailPaths.add(path);
+            addMasterDetailRoutes(masterDetailPresenter);
+            return path;
         } else {
             log.warn("{} has no valid response", TagGroupMD.getApiPathMap().get(HttpMethod.GET).getPath());
+            return null;
         }
     }
 
-    private void registerListPresenter(TagGroupLV tagGroupLV, boolean showAllPaths) {
+    private void rebuildMasterDetailRoutes() {
+        masterDetailRoutes = new PathTemplateTrie<>();
+        new TreeMap<>(masterDetailPresenters).values().forEach(this::addMasterDetailRoutes);
+    }
+
+    /**
+     * Adds the routes of the presenter and of its uri and relation presenters, existing routes are kept
+     */
+    private void addMasterDetailRoutes(MasterDetailPresenter masterDetailPresenter) {
+        masterDetailRoutes.putIfAbsent(masterDetailPresenter.getTagGroupMD().getApiPathMap().get(HttpMethod.GET).getPath(), masterDetailPresenter);
+        MasterDetailPresenter uriPresenter = masterDetailPresenter.getUriMasterDetailPresenter();
+        if (uriPresenter != null)
+            masterDetailRoutes.putIfAbsent(uriPresenter.getTagGroupMD().getApiPathMap().get(HttpMethod.GET).getPath(), uriPresenter);
+        masterDetailPresenter.getRelationPresenter().forEach(masterDetailRoutes::putIfAbsent);
+    }
+
+    private void registerListPresenter(TagGroupLV tagGroupLV, boolean showAllPaths, RegisteredTag registeredTag) {
         log.info("Registering List Presenter for the {} view", tagGroupLV.getTagName());
 
-        tagGroupLV.getStrucViewGroupMDVS().forEach((k, v) -> registerMasterDetailPresenter(v, false, "/list/" + tagGroupLV.getTagName()));
+        tagGroupLV.getStrucViewGroupMDVS().forEach((k, v) -> registerMasterDetailPresenter(v, "/list/" + tagGroupLV.getTagName(), registeredTag));
 
         ListPresenter listPresenter = new ListPresenter(notificationService, clientDataService, tagGroupLV, this, showAllPaths);
 
         listPresenters.put(tagGroupLV.getTagName(), listPresenter);
-
-        AccessPoint.getMainLayout().addNavigationTarget(tagGroupLV.getTagName(), false
-                , tagGroupLV.getTagName());
-    }
-
-    public MasterDetailPresenter getMasterDetailPresenter(String path) {
-        if (masterDetailPresenters.containsKey(path))
-            return masterDetailPresenters.get(path);
-        else
-            return masterDetailPresenters.get(path + "/");
     }
 
     public ListPresenter getListPresenter(String name) {
@@ -134,17 +296,21 @@ public class TagPresenter implements DetailLayout.NavigationListener {
         }
     }
 
+    /**
+     * Resolves a path below /masterDetail to the view of the presenter of the matching path template,
+     * the values of the path variables are passed on to the presenter
+     *
+     * @return the view or null if no presenter matches the path
+     */
     public View getMDVNavigationView(String path) {
-        List<View> foundMDVPresenters = masterDetailPresenters.values().stream()
-                .map(masterDetailPresenter -> masterDetailPresenter.getIfHasTargetView(path))
-                .filter(Objects::nonNull).toList();
-        if (foundMDVPresenters.size() > 0) {
-            return foundMDVPresenters.get(0);
+        PathTemplateTrie.Match<MasterDetailPresenter> route = masterDetailRoutes.match(path);
+        if (route == null && !pendingTags.isEmpty()) {
+            //the targeted path may belong to a tag that has not been visited yet
+            prepareTagOfPath(path);
+            route = masterDetailRoutes.match(path);
         }
-        return null;
-    }
-
-    public boolean hasMasterDetailPresenter(String path) {
-        return masterDetailPresenters.containsKey(path) || masterDetailPresenters.containsKey(path + "/");
+        if (route == null)
+            return null;
+        return route.getValue().getView(route.getVariables());
     }
 }
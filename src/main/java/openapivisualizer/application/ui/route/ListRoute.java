@@ -32,11 +32,17 @@ public class ListRoute extends Div implements BeforeEnterObserver,BeforeLeaveObs
     public void beforeEnter(BeforeEnterEvent beforeEnterEvent){
         String tag = beforeEnterEvent.getRouteParameters().get("tag").get().replace("%20"," "); //replace spaces
         System.out.println("Route tag:"+ tag);
+        presenter.prepareTag(tag);
         if(presenter.getListPresenter(tag) !=null) {
             activeView = presenter.getListPresenter(tag).getView();
             AccessPoint.getMainLayout().setCurrentPageTitle(tag);
             add(activeView);
         }
+        else if(presenter.getMasterDetailRoute(tag) != null) {
+            //the tag turned out to be a master detail view when it was analysed
+            activeView = null;
+            beforeEnterEvent.forwardTo(presenter.getMasterDetailRoute(tag));
+        }
         else{
             add(notFoundPresenter.getView());
             activeView = null;
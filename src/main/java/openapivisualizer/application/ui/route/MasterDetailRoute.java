@@ -52,24 +52,15 @@ public class MasterDetailRoute extends Div implements BeforeLeaveObserver, HasUr
 
         log.info("targeted path {}", targetedPath);
 
-        if (tagPresenter.hasMasterDetailPresenter(targetedPath)) {
-            activeView = tagPresenter.getMasterDetailPresenter(targetedPath).getView();
-            AccessPoint.getMainLayout().setCurrentPageTitle(tagPresenter.getMasterDetailPresenter(targetedPath).getTagGroupMD().getTagName());
-            add(activeView);
+        View activeView = tagPresenter.getMDVNavigationView(targetedPath);
+        this.activeView = activeView;
+        if (activeView == null) {
+            add(notFoundPresenter.getView());
+            //UI.getCurrent().navigate("/404");
+            AccessPoint.getMainLayout().setCurrentPageTitle("404");
         } else {
-            log.info("Route with parameter {} detected", targetedPath);
-            View activeView = tagPresenter.getMDVNavigationView(targetedPath);
-            this.activeView = activeView;
-            //activeView = presenter.getMasterDetailPresenter(targetedPath).getInternalView(List.of(parameter.split("/")));
-            if (activeView == null) {
-                add(notFoundPresenter.getView());
-                //UI.getCurrent().navigate("/404");
-                AccessPoint.getMainLayout().setCurrentPageTitle("404");
-            } else {
-                add(activeView);
-                AccessPoint.getMainLayout().setCurrentPageTitle(activeView.getTag());
-            }
-
+            add(activeView);
+            AccessPoint.getMainLayout().setCurrentPageTitle(activeView.getTag());
         }
     }
 
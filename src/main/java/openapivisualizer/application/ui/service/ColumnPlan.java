@@ -0,0 +1,109 @@
+package openapivisualizer.application.ui.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import openapivisualizer.application.generation.structuremodel.DataPropertyType;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucValue;
+import openapivisualizer.application.rest.client.restdatamodel.DataSchema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The grid columns of a schema. Properties of nested objects are flattened into columns with dotted keys,
+ * e.g. "owner.name", up to a maximum depth; deeper objects and arrays are shown as one column.
+ * A plan only holds the keys and types of its columns, so it can be shared by all views of the schema.
+ */
+@Getter
+public class ColumnPlan {
+
+    private final List<Column> columns;
+
+    private ColumnPlan(List<Column> columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @param maxDepth the number of object levels that are flattened, 1 only shows the properties of the schema itself
+     */
+    public static ColumnPlan compile(StrucSchema strucSchema, int maxDepth) {
+        List<Column> columns = new ArrayList<>();
+        if (strucSchema != null && strucSchema.getStrucValue() != null)
+            addColumns(strucSchema.getStrucValue(), new String[0], Math.max(1, maxDepth), columns);
+        return new ColumnPlan(List.copyOf(columns));
+    }
+
+    private static void addColumns(StrucValue strucValue, String[] parentSegments, int remainingDepth, List<Column> columns) {
+        strucValue.getProperties().forEach((propertyName, property) -> {
+            String[] segments = Arrays.copyOf(parentSegments, parentSegments.length + 1);
+            segments[parentSegments.length] = propertyName;
+            StrucValue propertyValue = property == null ? null : property.getStrucValue();
+            if (propertyValue != null && propertyValue.getType() == DataPropertyType.OBJECT
+                    && !propertyValue.getProperties().isEmpty() && remainingDepth > 1) {
+                addColumns(propertyValue, segments, remainingDepth - 1, columns);
+            } else {
+                columns.add(new Column(segments, propertyValue == null ? null : propertyValue.getType()));
+            }
+        });
+    }
+
+    @Getter
+    public static class Column {
+        private final String key;
+        private final DataPropertyType type;
+        @Getter(AccessLevel.NONE)
+        private final String[] segments;
+
+        private Column(String[] segments, DataPropertyType type) {
+            this.key = String.join(".", segments);
+            this.type = type;
+            this.segments = segments;
+        }
+
+        /**
+         * @return the data of this column in the row or null if the row does not have it
+         */
+        public DataSchema find(DataSchema row) {
+            DataSchema current = row;
+            for (String segment : segments) {
+                if (current == null || current.getValue() == null)
+                    return null;
+                current = current.getValue().getProperties().get(segment);
+            }
+            return current;
+        }
+
+        /**
+         * @return the plain value, the type of the value if it has no plain value, or "-" if the row does not have it
+         */
+        public String getText(DataSchema row) {
+            DataSchema data = find(row);
+            if (data == null || data.getValue() == null)
+                return "-";
+            if (data.getValue().getPlainValue() != null)
+                return data.getValue().getPlainValue();
+            return data.getValue().getDataPropertyType().toString();
+        }
+
+        /**
+         * @return a comparator of rows by this column, numbers are sorted by their value and everything else by its text
+         */
+        public Comparator<DataSchema> getComparator() {
+            if (type != DataPropertyType.INTEGER && type != DataPropertyType.DOUBLE)
+                return Comparator.comparing(this::getText);
+            return Comparator.comparingDouble(this::getNumber);
+        }
+
+        private double getNumber(DataSchema row) {
+            try {
+                return Double.parseDouble(getText(row));
+            } catch (NumberFormatException e) {
+                //rows without a number come first
+                return Double.NEGATIVE_INFINITY;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package openapivisualizer.application.ui.service;
+
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Compiles the column plans of the shown schemas once and shares them between all views and sessions.
+ * Plans are released together with the structure their schema belongs to.
+ */
+@Service
+public class ColumnPlanService {
+
+    private final int maxDepth;
+    private final Map<StrucSchema, ColumnPlan> columnPlans = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public ColumnPlanService(@Value("${openapivisualizer.columns.max-depth:2}") int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public ColumnPlan getColumnPlan(StrucSchema strucSchema) {
+        if (strucSchema == null)
+            return ColumnPlan.compile(null, maxDepth);
+        return columnPlans.computeIfAbsent(strucSchema, schema -> ColumnPlan.compile(schema, maxDepth));
+    }
+}
@@ -1,5 +1,6 @@
 package openapivisualizer.application.ui.service;
 
+import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.notification.NotificationVariant;
 import com.vaadin.flow.spring.annotation.UIScope;
@@ -9,12 +10,22 @@ import org.springframework.stereotype.Controller;
 @UIScope
 public class NotificationService {
 
+    //notifications posted from background threads are pushed to the UI this service belongs to
+    private final UI ui = UI.getCurrent();
+
     public void postNotification(String text, boolean isError){
+        if (UI.getCurrent() == null && ui != null) {
+            ui.access(() -> showNotification(text, isError));
+        } else {
+            showNotification(text, isError);
+        }
+    }
+
+    private void showNotification(String text, boolean isError) {
         Notification notification = Notification.show(text);
         if(!isError)
             notification.addThemeVariants(NotificationVariant.LUMO_SUCCESS);
         else
             notification.addThemeVariants(NotificationVariant.LUMO_ERROR);
-
     }
 }
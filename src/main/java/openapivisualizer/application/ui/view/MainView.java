@@ -2,10 +2,12 @@ package openapivisualizer.application.ui.view;
 
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.checkbox.Checkbox;
 import com.vaadin.flow.component.html.Label;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.textfield.PasswordField;
 import com.vaadin.flow.component.textfield.TextField;
@@ -18,6 +20,10 @@ public class MainView extends HorizontalLayout {
     public interface ActionListener {
         void openApiAction(String source);
 
+        void cancelOpenApiAction();
+
+        void setWatching(boolean watching);
+
         void openSettings();
 
         void serverSelected(String server);
@@ -28,6 +34,10 @@ public class MainView extends HorizontalLayout {
     }
 
     private final Select<String> serverListBox = new Select<>();
+    private final Button extractButton = new Button("Extract OpenAPI Structure!");
+    private final VerticalLayout progressLayout = new VerticalLayout();
+    private final Label progressLabel = new Label();
+    private final ProgressBar progressBar = new ProgressBar();
 
     public MainView(ActionListener actionListener, String defaultSource, String selectedServerURL, List<String> serverURLs) {
         setSizeFull();
@@ -50,13 +60,24 @@ public class MainView extends HorizontalLayout {
         textField.setWidth(40, Unit.PERCENTAGE);
         generationLayout.add(textField);
 
-        Button extractButton = new Button("Extract OpenAPI Structure!");
         extractButton.addClickListener(e -> actionListener.openApiAction(textField.getValue()));
         Button settingsButton = new Button(VaadinIcon.SLIDERS.create());
         settingsButton.addClickListener(event -> actionListener.openSettings());
         HorizontalLayout buttons = new HorizontalLayout(extractButton, settingsButton);
         generationLayout.add(buttons);
 
+        Checkbox watchCheckbox = new Checkbox("Reload when the OpenAPI Doc changes");
+        watchCheckbox.addValueChangeListener(e -> actionListener.setWatching(e.getValue()));
+        generationLayout.add(watchCheckbox);
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.addClickListener(e -> actionListener.cancelOpenApiAction());
+        progressLayout.add(progressLabel, progressBar, cancelButton);
+        progressLayout.setAlignItems(Alignment.CENTER);
+        progressLayout.setWidth(40, Unit.PERCENTAGE);
+        progressLayout.setVisible(false);
+        generationLayout.add(progressLayout);
+
         HorizontalLayout horizontalLayout = new HorizontalLayout();
         TextField serverInput = new TextField();
         serverInput.setPlaceholder("Server URL");
@@ -115,6 +136,18 @@ public class MainView extends HorizontalLayout {
             serverListBox.setValue(servers.get(0));
     }
 
+    public void showProgress(String description, double progress) {
+        extractButton.setEnabled(false);
+        progressLabel.setText(description);
+        progressBar.setValue(progress);
+        progressLayout.setVisible(true);
+    }
+
+    public void hideProgress() {
+        extractButton.setEnabled(true);
+        progressLayout.setVisible(false);
+    }
+
     public void setSelectedServer(String server) {
         serverListBox.setValue(server);
     }
@@ -7,12 +7,14 @@ import com.vaadin.flow.component.html.Div;
 import com.vaadin.flow.component.html.Label;
 import com.vaadin.flow.component.icon.VaadinIcon;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.component.splitlayout.SplitLayout;
 import lombok.extern.slf4j.Slf4j;
 import openapivisualizer.application.generation.structuremodel.StrucSchema;
 import openapivisualizer.application.rest.client.restdatamodel.DataSchema;
 import openapivisualizer.application.ui.components.SettingsDialog;
 import openapivisualizer.application.ui.components.detaillayout.DetailLayout;
+import openapivisualizer.application.ui.service.ColumnPlan;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -44,12 +46,14 @@ public class MasterDetailView extends View {
     private final Grid<DataSchema> grid = new Grid<>(DataSchema.class, false);
     private final DetailLayout detailLayout;
     private final Label noDataLabel = new Label("No Data");
+    private final ProgressBar loadingBar = new ProgressBar();
+    private final Button refreshButton = new Button(VaadinIcon.REFRESH.create());
     private final List<Grid.Column<DataSchema>> inlineGridColumns = new ArrayList<>();
 
     private List<Grid.Column<DataSchema>> initialGridColumns;
 
-    public MasterDetailView(String tag, DetailLayout.NavigationListener navigationListener, MDActionListener actionListener, StrucSchema getSchema, boolean hasPost,
-                            boolean hasPut, boolean hasDelete, boolean showInline) { //change to 2 schemas 1 create 1 get
+    public MasterDetailView(String tag, DetailLayout.NavigationListener navigationListener, MDActionListener actionListener, StrucSchema getSchema,
+                            ColumnPlan columnPlan, boolean hasPost, boolean hasPut, boolean hasDelete, boolean showInline) { //change to 2 schemas 1 create 1 get
         super(tag);
         this.mdActionListener = actionListener;
         addClassNames("master-detail-view");
@@ -70,7 +74,7 @@ public class MasterDetailView extends View {
         add(splitLayout);
 
         // Configure Grid
-        configureGrid(actionListener, getSchema, hasPut, hasDelete, showInline);
+        configureGrid(actionListener, columnPlan, hasPut, hasDelete, showInline);
     }
 
     public void addTopButtons(boolean hasPost, boolean hasPut, boolean hasDelete, boolean showInline) {
@@ -78,7 +82,6 @@ public class MasterDetailView extends View {
         HorizontalLayout menuBar = new HorizontalLayout();
         menuBar.getStyle().set("padding-left", "10px");
 
-        Button refreshButton = new Button(VaadinIcon.REFRESH.create());
         refreshButton.addClickListener(e -> mdActionListener.refreshData());
         menuBar.add(refreshButton);
 
@@ -136,7 +139,7 @@ public class MasterDetailView extends View {
     }
 
 
-    public void configureGrid(MDActionListener actionListener, StrucSchema getSchema, boolean hasput, boolean hasdelete, boolean showInline) {
+    public void configureGrid(MDActionListener actionListener, ColumnPlan columnPlan, boolean hasput, boolean hasdelete, boolean showInline) {
 
         if (hasdelete && showInline) {
             Grid.Column<DataSchema> column = grid.addComponentColumn(dataSchema -> {
@@ -155,25 +158,10 @@ public class MasterDetailView extends View {
             inlineGridColumns.add(column);
         }
 
-        //Add all columns
-        getSchema.getStrucValue().getProperties().forEach((key, value) -> {
-                    //if (value.getStrucValue().getType() != DataPropertyType.OBJECT
-                    //        && value.getStrucValue().getType() != DataPropertyType.ARRAY) {
-                    grid.addColumn(
-                            dataSchema -> {
-                                if (dataSchema.getValue().getProperties().containsKey(key)) {
-                                    if (dataSchema.getValue().getProperties().get(key).getValue().getPlainValue() != null)
-                                        return dataSchema.getValue().getProperties().get(key).getValue().getPlainValue();
-                                    else
-                                        return dataSchema.getValue().getProperties().get(key).getValue().getDataPropertyType().toString();
-                                } else
-                                    return "-";
-                                //return dataSchema.getValue().getProperties().containsKey(key)
-                                //        ? dataSchema.getValue().getProperties().get(key).getValue().getPlainValue() : "-"
-                            }
-                    ).setHeader(key).setAutoWidth(true).setResizable(true).setSortable(true).setKey(key);
-                    //}
-                }
+        //Add all columns, nested properties are flattened by the column plan
+        columnPlan.getColumns().forEach(column ->
+                grid.addColumn(column::getText).setHeader(column.getKey()).setAutoWidth(true).setResizable(true)
+                        .setSortable(true).setComparator(column.getComparator()).setKey(column.getKey())
         );
 
         initialGridColumns = grid.getColumns().stream().filter(column -> column.getKey() != null).collect(Collectors.toList());
@@ -197,6 +185,19 @@ public class MasterDetailView extends View {
         });
     }
 
+    /**
+     * Shows that data is being requested, the current data stays visible until the response arrives
+     */
+    public void showLoading() {
+        refreshButton.setEnabled(false);
+        loadingBar.setVisible(true);
+    }
+
+    public void hideLoading() {
+        refreshButton.setEnabled(true);
+        loadingBar.setVisible(false);
+    }
+
     public void setData(DataSchema data) {
         if (data != null && data.getValue() != null && (!data.getValue().getDataSchemas().isEmpty() || !data.getValue().getProperties().isEmpty())) {
             noDataLabel.setVisible(false);
@@ -222,6 +223,9 @@ public class MasterDetailView extends View {
     private Div createGridLayout() {
         Div wrapper = new Div();
         wrapper.setClassName("grid-wrapper");
+        loadingBar.setIndeterminate(true);
+        loadingBar.setVisible(false);
+        wrapper.add(loadingBar);
         grid.setSizeFull();
         wrapper.add(grid);
         wrapper.add(noDataLabel);
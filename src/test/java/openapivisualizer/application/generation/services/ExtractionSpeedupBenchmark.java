@@ -0,0 +1,95 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucStringTable;
+import openapivisualizer.application.generation.structuremodel.StructureFreezer;
+import openapivisualizer.application.generation.structuremodel.TagGroup;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speed-up of the eager extraction with the number of threads of openapivisualizer.extraction.parallelism.
+ * Runs the same stages as StructureProviderService after the spec is parsed: the schemas are mapped and frozen,
+ * the operations are grouped and all tag groups are analysed.
+ * <p>
+ * Run the main method with the test classpath after {@code mvn test-compile}, e.g. from the IDE.
+ * The speed-up over a single thread is printed at the end, it is only meaningful on a machine with at least 16 cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionSpeedupBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int parallelism;
+
+    @Param({"2000"})
+    private int schemaCount;
+
+    @Param({"100"})
+    private int tagCount;
+
+    private ExtractionPoolService extractionPoolService;
+    private SchemaService schemaService;
+    private PathService pathService;
+    private TagGroupService tagGroupService;
+    private OpenAPI openApi;
+
+    @Setup
+    public void setUp() {
+        extractionPoolService = new ExtractionPoolService(parallelism);
+        schemaService = new SchemaService(extractionPoolService, 64, false);
+        pathService = new PathService(schemaService);
+        tagGroupService = new TagGroupService(pathService);
+        openApi = SyntheticSpec.createOpenApi(schemaCount, tagCount, 10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractionPoolService.shutdown();
+    }
+
+    @Benchmark
+    public List<TagGroup> extract() {
+        StrucSchemaScope scope = schemaService.mapSchemasToStrucSchemas(openApi.getComponents().getSchemas());
+        Map<String, StrucSchema> strucSchemaMap = scope.getComponentSchemas();
+        StrucStringTable strings = new StrucStringTable();
+        StructureFreezer freezer = new StructureFreezer(strings);
+        strucSchemaMap.values().forEach(freezer::freeze);
+        PendingOperations pendingOperations = pathService.groupOperationsByTag(openApi.getPaths(), scope, strings,
+                StructureProviderService.OTHER_TAG);
+        scope.finishMapping();
+        List<String> tagNames = new ArrayList<>(pendingOperations.getTags());
+        return extractionPoolService.map(tagNames,
+                tag -> tagGroupService.createTagGroup(tag, pendingOperations.convert(tag), strucSchemaMap));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(ExtractionSpeedupBenchmark.class.getSimpleName())
+                .build()).run();
+        Map<Integer, Double> millisByParallelism = new TreeMap<>();
+        results.forEach(result -> millisByParallelism.put(Integer.parseInt(result.getParams().getParam("parallelism")),
+                result.getPrimaryResult().getScore()));
+        Double singleThreadMillis = millisByParallelism.get(1);
+        if (singleThreadMillis == null)
+            return;
+        millisByParallelism.forEach((threads, millis) ->
+                System.out.printf("%2d threads: %8.1f ms, speed-up %.2f%n", threads, millis, singleThreadMillis / millis));
+    }
+}
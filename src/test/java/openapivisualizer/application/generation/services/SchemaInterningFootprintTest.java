@@ -0,0 +1,53 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.media.Schema;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the memory that the interning of the scope saves with JOL, the interner itself only counts shared instances
+ */
+class SchemaInterningFootprintTest {
+
+    private final ExtractionPoolService extractionPoolService = new ExtractionPoolService(1);
+    private final SchemaService schemaService = new SchemaService(extractionPoolService, Integer.MAX_VALUE, false);
+
+    @AfterEach
+    void tearDown() {
+        extractionPoolService.shutdown();
+    }
+
+    @Test
+    void interningSavesMemory() {
+        Map<String, Schema> schemas = SyntheticSpec.createSchemas(500);
+
+        long internedBytes = GraphLayout.parseInstance(mapComponents(schemas, true)).totalSize();
+        long mappedBytes = GraphLayout.parseInstance(mapComponents(schemas, false)).totalSize();
+
+        System.out.printf("Interning saves %d of %d KB%n", (mappedBytes - internedBytes) / 1024, mappedBytes / 1024);
+        assertTrue(internedBytes < mappedBytes);
+    }
+
+    /**
+     * @param interned false to close the interning of the scope before anything is mapped
+     */
+    private Map<String, StrucSchema> mapComponents(Map<String, Schema> schemas, boolean interned) {
+        Map<String, StrucSchema> components = new HashMap<>();
+        StrucSchemaScope scope = new StrucSchemaScope(components);
+        if (!interned)
+            scope.finishMapping();
+        schemas.forEach((name, schema) -> components.put(name, schemaService.mapSchemaToStrucSchema(name, schema, scope)));
+        scope.complete();
+        //the lookup tables are released, only the structure itself is measured
+        scope.finishMapping();
+        return components;
+    }
+}
@@ -0,0 +1,61 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.media.Schema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against parallel mapping of the component schemas, see openapivisualizer.extraction.parallel-mapping-threshold.
+ * The threshold should be about the schema count at which the parallel mapping starts to be faster.
+ * The pool uses all cores, as with the default openapivisualizer.extraction.parallelism.
+ * <p>
+ * Run the main method with the test classpath after {@code mvn test-compile}, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaMappingThresholdBenchmark {
+
+    @Param({"16", "32", "64", "128", "256"})
+    private int schemaCount;
+
+    @Param({"sequential", "parallel"})
+    private String mapping;
+
+    private ExtractionPoolService extractionPoolService;
+    private SchemaService schemaService;
+    private Map<String, Schema> schemas;
+
+    @Setup
+    public void setUp() {
+        extractionPoolService = new ExtractionPoolService(0);
+        int parallelMappingThreshold = mapping.equals("parallel") ? 0 : Integer.MAX_VALUE;
+        schemaService = new SchemaService(extractionPoolService, parallelMappingThreshold, false);
+        schemas = SyntheticSpec.createSchemas(schemaCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractionPoolService.shutdown();
+    }
+
+    @Benchmark
+    public StrucSchemaScope mapSchemas() {
+        return schemaService.mapSchemasToStrucSchemas(schemas);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SchemaMappingThresholdBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.media.Schema;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecIndexTest {
+
+    @Test
+    void rejectsYamlWithAliases() {
+        String yaml = """
+                openapi: 3.0.1
+                components:
+                  schemas:
+                    Id: &id
+                      type: string
+                      format: uuid
+                    Item:
+                      type: object
+                      properties:
+                        id: *id
+                """;
+
+        assertThrows(IOException.class, () -> SpecIndex.build(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void indexesYamlWithoutAliases() throws IOException {
+        String yaml = """
+                openapi: 3.0.1
+                tags:
+                  - name: "items \\"quoted\\""
+                components:
+                  schemas:
+                    Item:
+                      type: object
+                      properties:
+                        name:
+                          type: string
+                """;
+
+        SpecIndex specIndex = SpecIndex.build(yaml.getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(specIndex.isSelfContained());
+        assertEquals("items \"quoted\"", specIndex.decodeTags().get(0).getName());
+        Schema<?> item = specIndex.getSchemas().get("Item");
+        assertEquals("string", ((Schema<?>) item.getProperties().get("name")).getType());
+    }
+
+    @Test
+    void leavesScalarComponentsToTheSwaggerParser() throws IOException {
+        String json = "{\"openapi\":\"3.0.1\",\"components\":{\"schemas\":{\"Text\":\"a \\\"quoted\\\" value\","
+                + "\"Item\":{\"type\":\"object\"}}}}";
+
+        SpecIndex specIndex = SpecIndex.build(json.getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(specIndex.isSelfContained());
+        assertEquals("object", specIndex.getSchemas().get("Item").getType());
+    }
+}
@@ -0,0 +1,55 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.OpenAPI;
+import openapivisualizer.application.generation.structuremodel.StrucPath;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StructureFreezer;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retained size of the mapped component schemas and converted operations before and after they are frozen,
+ * measured with JOL on the running JVM, see StructureFreezer.
+ * <p>
+ * Run the main method with the test classpath after {@code mvn test-compile}, e.g. from the IDE.
+ * The optional arguments are the number of schemas and of tags.
+ */
+public class StructureFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int schemaCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int tagCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        OpenAPI openApi = SyntheticSpec.createOpenApi(schemaCount, tagCount, 10);
+
+        ExtractionPoolService extractionPoolService = new ExtractionPoolService(1);
+        SchemaService schemaService = new SchemaService(extractionPoolService, Integer.MAX_VALUE, false);
+        PathService pathService = new PathService(schemaService);
+        StrucSchemaScope scope = schemaService.mapSchemasToStrucSchemas(openApi.getComponents().getSchemas());
+        Map<String, StrucSchema> strucSchemaMap = scope.getComponentSchemas();
+        List<StrucPath> strucPaths = new ArrayList<>();
+        openApi.getPaths().forEach((path, pathItem) -> pathItem.readOperationsMap().forEach((method, operation) ->
+                strucPaths.add(pathService.operationToStrucPath(path, HttpMethod.valueOf(method.name()), operation, scope))));
+        //the lookup tables of the mapping are not part of the structure that is kept
+        scope.finishMapping();
+        extractionPoolService.shutdown();
+
+        GraphLayout mapped = GraphLayout.parseInstance(strucSchemaMap, strucPaths);
+        StructureFreezer freezer = new StructureFreezer();
+        strucSchemaMap.values().forEach(freezer::freeze);
+        strucPaths.forEach(freezer::freeze);
+        GraphLayout frozen = GraphLayout.parseInstance(strucSchemaMap, strucPaths);
+
+        System.out.printf("%d schemas, %d operations: %s%n", schemaCount, strucPaths.size(), freezer.getReport());
+        System.out.printf("mapped: %8d KB in %8d objects%n", mapped.totalSize() / 1024, mapped.totalCount());
+        System.out.printf("frozen: %8d KB in %8d objects%n", frozen.totalSize() / 1024, frozen.totalCount());
+        System.out.println("Released by freezing:");
+        System.out.println(mapped.subtract(frozen).toFootprint());
+        System.out.println("Allocated by freezing:");
+        System.out.println(frozen.subtract(mapped).toFootprint());
+    }
+}
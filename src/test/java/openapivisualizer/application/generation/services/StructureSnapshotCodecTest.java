@@ -0,0 +1,114 @@
+package openapivisualizer.application.generation.services;
+
+import openapivisualizer.application.generation.structuremodel.DataPropertyType;
+import openapivisualizer.application.generation.structuremodel.StrucSchema;
+import openapivisualizer.application.generation.structuremodel.StrucSchemaScope;
+import openapivisualizer.application.generation.structuremodel.StrucValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructureSnapshotCodecTest {
+
+    private static final String SOURCE = "http://localhost/openapi.json";
+    private static final String CONTENT_HASH = "abc123";
+
+    @Test
+    void keepsUnresolvedCyclicAndSharedReferences() throws IOException {
+        Map<String, StrucSchema> decoded = roundTrip(createComponents(false)).getComponentSchemas();
+
+        StrucSchema node = decoded.get("Node");
+        StrucSchema owner = decoded.get("Owner");
+        assertFalse(node.getStrucValue().getChildrenWithoutResolving().resolved());
+        assertTrue(owner.getStrucValue().getChildrenWithoutResolving().resolved());
+        //the reference of the cycle is resolved against the restored components on first access
+        assertSame(node, node.getStrucValue().getProperties().get("next"));
+        assertSame(node, owner.getStrucValue().getProperties().get("node"));
+        assertSame(owner.getStrucValue().getProperties().get("address"), node.getStrucValue().getProperties().get("address"));
+        assertEquals(DataPropertyType.STRING, owner.getStrucValue().getProperties().get("address").getStrucValue().getType());
+    }
+
+    @Test
+    void keepsResolvedCyclicReferences() throws IOException {
+        Map<String, StrucSchema> decoded = roundTrip(createComponents(true)).getComponentSchemas();
+
+        StrucSchema node = decoded.get("Node");
+        StrucValue.Children children = node.getStrucValue().getChildrenWithoutResolving();
+        assertTrue(children.resolved());
+        assertSame(node, children.properties().get("next"));
+    }
+
+    @Test
+    void keepsOperationsAndSpecData() throws IOException {
+        byte[] json = "{\"operationId\":\"getNode\"}".getBytes(StandardCharsets.UTF_8);
+        StructureSnapshotCodec.Snapshot snapshot = new StructureSnapshotCodec.Snapshot(SOURCE, CONTENT_HASH, true,
+                List.of("http://localhost"), List.of("nodes", "Other"), createComponents(false),
+                List.of(new PendingOperations.EncodedOperation("/nodes/{id}", HttpMethod.GET, List.of("nodes", "Other"), json)), null);
+
+        StructureSnapshotCodec.Snapshot decoded = roundTrip(snapshot);
+
+        assertTrue(decoded.isHasHttpBasic());
+        assertEquals(List.of("http://localhost"), decoded.getServers());
+        assertEquals(List.of("nodes", "Other"), decoded.getTagNames());
+        assertEquals(1, decoded.getOperations().size());
+        PendingOperations.EncodedOperation operation = decoded.getOperations().get(0);
+        assertEquals("/nodes/{id}", operation.path());
+        assertEquals(HttpMethod.GET, operation.httpMethod());
+        assertEquals(List.of("nodes", "Other"), operation.tags());
+        assertArrayEquals(json, operation.json());
+    }
+
+    @Test
+    void ignoresSnapshotOfOtherContent() throws IOException {
+        byte[] encoded = StructureSnapshotCodec.encode(createSnapshot(createComponents(false)));
+
+        assertTrue(StructureSnapshotCodec.decode(ByteBuffer.wrap(encoded), SOURCE, "other").isEmpty());
+    }
+
+    /**
+     * Node references itself through a reference, Owner references Node directly and shares an inline schema with it
+     */
+    private static Map<String, StrucSchema> createComponents(boolean resolved) {
+        Map<String, StrucSchema> components = new HashMap<>();
+        StrucSchemaScope scope = new StrucSchemaScope(components);
+        StrucSchema address = new StrucSchema("address", new StrucValue(DataPropertyType.STRING));
+
+        StrucValue nextRef = new StrucValue(DataPropertyType.SCHEMA);
+        nextRef.setRef("Node");
+        StrucValue nodeValue = new StrucValue(DataPropertyType.OBJECT, scope);
+        nodeValue.addProperty("next", new StrucSchema("next", nextRef));
+        nodeValue.addProperty("address", address);
+        StrucSchema node = new StrucSchema("Node", nodeValue);
+
+        StrucValue ownerValue = new StrucValue(DataPropertyType.OBJECT);
+        ownerValue.addProperty("node", node);
+        ownerValue.addProperty("address", address);
+
+        components.put("Node", node);
+        components.put("Owner", new StrucSchema("Owner", ownerValue));
+        if (resolved)
+            nodeValue.getProperties();
+        return components;
+    }
+
+    private static StructureSnapshotCodec.Snapshot createSnapshot(Map<String, StrucSchema> components) {
+        return new StructureSnapshotCodec.Snapshot(SOURCE, CONTENT_HASH, false, List.of(), List.of(), components, List.of(), null);
+    }
+
+    private static StructureSnapshotCodec.Snapshot roundTrip(Map<String, StrucSchema> components) throws IOException {
+        return roundTrip(createSnapshot(components));
+    }
+
+    private static StructureSnapshotCodec.Snapshot roundTrip(StructureSnapshotCodec.Snapshot snapshot) throws IOException {
+        byte[] encoded = StructureSnapshotCodec.encode(snapshot);
+        return StructureSnapshotCodec.decode(ByteBuffer.wrap(encoded), SOURCE, CONTENT_HASH).orElseThrow();
+    }
+}
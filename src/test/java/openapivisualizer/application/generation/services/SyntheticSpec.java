@@ -0,0 +1,95 @@
+package openapivisualizer.application.generation.services;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ArraySchema;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.IntegerSchema;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.PathParameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates specs of a given size for the benchmarks. Every component references two others and has inline schemas
+ * of the same shape as the other components, so the references, the interning and the freezing all have work to do.
+ * Each tag has a collection and an item path for some of the components.
+ */
+final class SyntheticSpec {
+
+    private SyntheticSpec() {
+    }
+
+    static Map<String, Schema> createSchemas(int schemaCount) {
+        Map<String, Schema> schemas = new HashMap<>();
+        for (int i = 0; i < schemaCount; i++) {
+            ObjectSchema schema = new ObjectSchema();
+            schema.addProperty("id", new IntegerSchema().format("int64"));
+            schema.addProperty("name", new StringSchema());
+            schema.addProperty("created", new StringSchema().format("date-time"));
+            schema.addProperty("parent", new Schema<>().$ref(schemaRef((i + 1) % schemaCount)));
+            schema.addProperty("children", new ArraySchema().items(new Schema<>().$ref(schemaRef((i + 7) % schemaCount))));
+            ObjectSchema links = new ObjectSchema();
+            links.addProperty("self", new StringSchema().format("uri"));
+            links.addProperty("next", new StringSchema().format("uri"));
+            schema.addProperty("_links", links);
+            schema.setRequired(List.of("id", "name"));
+            schemas.put(schemaName(i), schema);
+        }
+        return schemas;
+    }
+
+    static OpenAPI createOpenApi(int schemaCount, int tagCount, int pathsPerTag) {
+        Paths paths = new Paths();
+        for (int tag = 0; tag < tagCount; tag++) {
+            for (int p = 0; p < pathsPerTag; p++) {
+                int schema = (tag * pathsPerTag + p) % schemaCount;
+                String collectionPath = "/api/tag" + tag + "/resource" + p;
+                paths.addPathItem(collectionPath, new PathItem()
+                        .get(operation(tag).responses(jsonResponse(new ArraySchema().items(new Schema<>().$ref(schemaRef(schema))))))
+                        .post(operation(tag).requestBody(new RequestBody().content(jsonContent(new Schema<>().$ref(schemaRef(schema)))))
+                                .responses(new ApiResponses().addApiResponse("201", new ApiResponse()))));
+                paths.addPathItem(collectionPath + "/{id}", new PathItem()
+                        .get(operation(tag).addParametersItem(new PathParameter().name("id").schema(new StringSchema().format("uuid")))
+                                .responses(jsonResponse(new Schema<>().$ref(schemaRef(schema)))))
+                        .delete(operation(tag).addParametersItem(new PathParameter().name("id").schema(new StringSchema().format("uuid")))
+                                .responses(new ApiResponses().addApiResponse("204", new ApiResponse()))));
+            }
+        }
+        OpenAPI openApi = new OpenAPI();
+        openApi.setPaths(paths);
+        openApi.setComponents(new Components().schemas(createSchemas(schemaCount)));
+        return openApi;
+    }
+
+    private static Operation operation(int tag) {
+        return new Operation().tags(List.of("tag" + tag));
+    }
+
+    private static ApiResponses jsonResponse(Schema<?> schema) {
+        return new ApiResponses().addApiResponse("200", new ApiResponse().content(jsonContent(schema)));
+    }
+
+    private static Content jsonContent(Schema<?> schema) {
+        return new Content().addMediaType("application/json", new MediaType().schema(schema));
+    }
+
+    private static String schemaName(int i) {
+        return "Schema" + i;
+    }
+
+    private static String schemaRef(int i) {
+        return "#/components/schemas/" + schemaName(i);
+    }
+}